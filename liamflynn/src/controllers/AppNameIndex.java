@@ -0,0 +1,148 @@
+package controllers;
+
+import models.App;
+
+import java.util.*;
+
+/**
+ * The AppNameIndex class finds apps whose names contain a search string, without lower-casing every name for every search.
+ * <p>
+ * Each app's name is lower-cased once, when the app is added or renamed, and the app is listed under every
+ * one, two and three-character piece (gram) of that name. A search of up to three characters is answered by the apps
+ * listed under it. A longer search only checks the apps listed under the rarest trigram of the search string,
+ * as any name containing the search string must contain all of its trigrams.
+ * The lower-case names are also kept in order, so a prefix search only goes through the names starting with it.
+ */
+public class AppNameIndex {
+
+    private static final int GRAM_LENGTH = 3;
+
+    private final Map<App, String> namesByApp = new HashMap<>();
+    private final Map<String, Set<App>> appsByGram = new HashMap<>();
+    private final NavigableMap<String, Set<App>> appsByName = new TreeMap<>();
+
+    /**
+     * This method adds an app to the index under its current name.
+     *
+     * @param app the app to add.
+     */
+    public void add(App app) {
+        String name = normalise(app.getAppName());
+        namesByApp.put(app, name);
+        appsByName.computeIfAbsent(name, key -> new HashSet<>()).add(app);
+        for (int i = 0; i < name.length(); i++) {
+            for (int end = i + 1; end <= Math.min(i + GRAM_LENGTH, name.length()); end++) {
+                appsByGram.computeIfAbsent(name.substring(i, end), key -> new HashSet<>()).add(app);
+            }
+        }
+    }
+
+    /**
+     * This method removes an app from the index, using the name it was added under.
+     *
+     * @param app the app to remove.
+     */
+    public void remove(App app) {
+        String name = namesByApp.remove(app);
+        if (name == null) {
+            return;
+        }
+        removeFrom(appsByName, name, app);
+        for (int i = 0; i < name.length(); i++) {
+            for (int end = i + 1; end <= Math.min(i + GRAM_LENGTH, name.length()); end++) {
+                removeFrom(appsByGram, name.substring(i, end), app);
+            }
+        }
+    }
+
+    private static void removeFrom(Map<String, Set<App>> appsByKey, String key, App app) {
+        Set<App> appsWithKey = appsByKey.get(key);
+        if (appsWithKey != null && appsWithKey.remove(app) && appsWithKey.isEmpty()) {
+            appsByKey.remove(key);
+        }
+    }
+
+    /**
+     * This method moves an app to its new name after it has been renamed.
+     *
+     * @param app the renamed app.
+     */
+    public void rename(App app) {
+        remove(app);
+        add(app);
+    }
+
+    /**
+     * This method finds the apps with exactly this name, ignoring case.
+     *
+     * @param name the name to look for.
+     * @return the apps with the name, in no particular order.
+     */
+    public List<App> appsNamed(String name) {
+        return new ArrayList<>(appsByName.getOrDefault(normalise(name), Set.of()));
+    }
+
+    public void clear() {
+        namesByApp.clear();
+        appsByGram.clear();
+        appsByName.clear();
+    }
+
+    /**
+     * This method finds the apps whose names contain the search string, ignoring case.
+     *
+     * @param searchName the string to search for.
+     * @return the matching apps, in no particular order.
+     */
+    public List<App> search(String searchName) {
+        String search = normalise(searchName);
+        List<App> matches = new ArrayList<>();
+        if (search.isEmpty()) {
+            matches.addAll(namesByApp.keySet());
+            return matches;
+        }
+        if (search.length() <= GRAM_LENGTH) {
+            matches.addAll(appsByGram.getOrDefault(search, Set.of()));
+            return matches;
+        }
+        Set<App> rarest = null;
+        for (int i = 0; i + GRAM_LENGTH <= search.length(); i++) {
+            Set<App> appsWithTrigram = appsByGram.get(search.substring(i, i + GRAM_LENGTH));
+            if (appsWithTrigram == null) {
+                return matches;
+            }
+            if (rarest == null || appsWithTrigram.size() < rarest.size()) {
+                rarest = appsWithTrigram;
+            }
+        }
+        for (App app : rarest) {
+            if (namesByApp.get(app).contains(search)) {
+                matches.add(app);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * This method finds the apps whose names start with the search string, ignoring case.
+     * The names starting with it are next to each other in the ordered names, from the prefix itself onwards.
+     *
+     * @param prefix the start of the names to search for.
+     * @return the matching apps, in no particular order.
+     */
+    public List<App> searchPrefix(String prefix) {
+        String search = normalise(prefix);
+        List<App> matches = new ArrayList<>();
+        for (Map.Entry<String, Set<App>> entry : appsByName.tailMap(search, true).entrySet()) {
+            if (!entry.getKey().startsWith(search)) {
+                break;
+            }
+            matches.addAll(entry.getValue());
+        }
+        return matches;
+    }
+
+    private static String normalise(String name) {
+        return (name == null) ? "" : name.toLowerCase(Locale.ROOT);
+    }
+}
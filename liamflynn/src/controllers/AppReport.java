@@ -0,0 +1,49 @@
+package controllers;
+
+/**
+ * The AppReport class holds the result of an AppStoreAPI listing:
+ * the text shown to the user, and the number and indexes of the apps that were listed.
+ * <p>
+ * Its toString returns the text, so a report can be printed the same way the listing Strings are.
+ */
+public class AppReport {
+
+    private final String text;
+    private final int[] indexes;
+
+    public AppReport(String text, int[] indexes) {
+        this.text = text;
+        this.indexes = indexes;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * This method returns the number of apps in the report.
+     *
+     * @return the number of listed apps, 0 if the text is a "no apps" message.
+     */
+    public int getCount() {
+        return indexes.length;
+    }
+
+    /**
+     * This method returns the indexes of the listed apps, in the order they were listed.
+     *
+     * @return a copy of the indexes, so the report can't be changed through it.
+     */
+    public int[] getIndexes() {
+        return indexes.clone();
+    }
+
+    public boolean isEmpty() {
+        return indexes.length == 0;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
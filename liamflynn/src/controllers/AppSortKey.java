@@ -0,0 +1,35 @@
+package controllers;
+
+import models.App;
+import models.Developer;
+
+import java.util.Comparator;
+
+/**
+ * The AppSortKey enum lists the values the AppStoreAPI can sort apps by.
+ * Each key holds the comparator that puts apps in ascending order of that value.
+ */
+public enum AppSortKey {
+    NAME(Comparator.comparing(App::getAppName)),
+    COST(Comparator.comparingDouble(App::getAppCost)),
+    SIZE(Comparator.comparingDouble(App::getAppSize)),
+    VERSION(Comparator.comparingDouble(App::getAppVersion)),
+    RATING(Comparator.comparingDouble(App::calculateRating)),
+    DEVELOPER(Comparator.comparing(App::getDeveloper, Comparator.nullsFirst(Comparator.comparing(Developer::getDeveloperName, String.CASE_INSENSITIVE_ORDER))));
+
+    private final Comparator<App> ascending;
+
+    AppSortKey(Comparator<App> ascending) {
+        this.ascending = ascending;
+    }
+
+    /**
+     * This method returns the comparator for this key in the requested direction.
+     *
+     * @param ascending true for lowest value first, false for highest value first.
+     * @return the comparator that orders apps by this key.
+     */
+    public Comparator<App> comparator(boolean ascending) {
+        return ascending ? this.ascending : this.ascending.reversed();
+    }
+}
@@ -1,15 +1,23 @@
 package controllers;
 
-import com.thoughtworks.xstream.XStream;
-import com.thoughtworks.xstream.io.xml.DomDriver;
 import models.*;
+import utils.AtomicFileWriter;
+import utils.BackgroundSaver;
+import utils.BinaryCatalog;
+import utils.CatalogXStream;
 import utils.ISerializer;
+import utils.OperationLog;
+import utils.SegmentedCatalog;
+import utils.XmlCatalogReader;
 
-import java.io.FileReader;
-import java.io.FileWriter;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
 
 import static utils.RatingUtility.generateRandomRating;
 
@@ -23,26 +31,165 @@ import static utils.RatingUtility.generateRandomRating;
  * list apps in specific orders or apps of specific types,
  * search for apps by different means,
  * and sort and swap apps.
+ * <p>
+ * The AppStoreAPI can be shared between threads. Methods that only read the apps hold a read lock, so any number
+ * of them run at the same time, and methods that change the apps hold the write lock. The lock is reentrant, so the
+ * methods can call each other. Changes made straight to an App object, rather than through these methods, are not
+ * covered, so threads should add ratings with addRating or submitRating rather than App.addRating.
+ * <p>
+ * listAllApps and listAllRecommendedApps don't take the lock at all. Each time a method holding the write lock
+ * finishes, a new CatalogSnapshot of the apps is published, and these listings read the latest one, so they never wait
+ * for a writer or see an update half applied. The methods holding the write lock note which apps they change, so
+ * publishing only copies those apps rather than going through every app.
  *
  * @author Liam FLynn
  * @version 1.0
  */
 public class AppStoreAPI implements ISerializer {
 
+    //catalogs with at least this many apps are sorted in parallel by default
+    public static final int PARALLEL_SORT_THRESHOLD = 50_000;
+
+    //simulateRatings with a number of ratings per app gives each fork-join task this many apps to rate
+    public static final int APPS_PER_SIMULATION_TASK = 256;
+
+    //saveIfLogIsFull saves in full once the operation log holds this many changes
+    public static final int COMPACTION_THRESHOLD = 10_000;
+
+    //the kinds of change written to the operation log
+    //an added app without its ID, as logs written before the ID was logged hold
+    private static final byte LOG_ADD_APP = 1;
+    private static final byte LOG_DELETE_APP = 2;
+    //an update with the app's ratings, as logs written before updates left the ratings out hold
+    private static final byte LOG_UPDATE_APP = 3;
+    private static final byte LOG_ADD_RATING = 4;
+    private static final byte LOG_SORT_APPS = 5;
+    private static final byte LOG_ADD_APP_WITH_ID = 6;
+    private static final byte LOG_UPDATE_APP_DETAILS = 7;
+
+    //a saved or logged ID more than this far past the number of apps is taken to be corrupt and replaced, so it can't
+    //make the ID arrays huge. IDs only get further apart than the number of apps as apps are deleted.
+    private static final int MAX_APP_ID_GAP = 1 << 20;
+
     private List<App> apps;
 
+    //maps each lower-cased app name to the index of the first app with that name, so name lookups don't scan apps
+    private Map<String, Integer> appIndexByName;
+
+    //app IDs are dense, so the app with a given ID and its current index are stored in arrays at that ID
+    private App[] appsById;
+    private int[] appIndexById;
+    private int nextAppId;
+
+    //the apps of each type, in the same order they are in the apps list
+    private EnumMap<AppType, List<App>> appsByType;
+
+    //the apps of each developer, keyed by lower-cased developer name and in the same order they are in the apps list
+    private Map<String, List<App>> appsByDeveloper;
+
+    //the apps with each average rating, lowest rating first. Apps are moved when their rating changes
+    private NavigableMap<Double, Set<App>> appsByRating;
+    private final RatingListener ratingIndexUpdater = this::moveInRatingIndex;
+
+    //cached orders of the apps list for each sort key, as the indexes of the apps in sorted order.
+    //a view is dropped whenever a change could alter it, and sorted again the next time it is asked for
+    private EnumMap<AppSortKey, int[]> ascendingViews;
+    private EnumMap<AppSortKey, int[]> descendingViews;
+
+    //finds apps by part of their name for listAllAppsByName
+    private AppNameIndex appNameIndex;
+
+    //the changes made since the xml file was last saved, or null if changes are not logged
+    private OperationLog operationLog;
+
+    //whether the apps are the xml file plus the logged changes, as they are after load or save. Changes are only
+    //logged while they are, as the log is replayed onto the file and changes to other apps would land on the wrong ones
+    private boolean logMatchesFile = false;
+
+    //how many times the write lock has been released, so a save can tell whether the apps changed after it read them
+    private long writeBatches = 0;
+
+    //read lock for methods that only read the apps and indexes, write lock for methods that change them
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    //the apps that have had ratings submitted since they were last drained, so a drain doesn't go through every app
+    private final Set<App> appsWithSubmittedRatings = ConcurrentHashMap.newKeySet();
+
+    //copies of the apps as they were when the write lock was last released, for readers that don't take the lock
+    private volatile CatalogSnapshot snapshot = CatalogSnapshot.EMPTY;
+
+    //the apps changed in place while the write lock has been held, and whether any have been removed or moved,
+    //so the snapshot published when it is released only copies what changed
+    private final Set<App> appsChangedInBatch = Collections.newSetFromMap(new IdentityHashMap<>());
+    private boolean appsMovedInBatch = false;
+
+    //gives loaded apps the same Developer objects as the DeveloperAPI, see setDeveloperInterner
+    private DeveloperInterner developerInterner = new DeveloperInterner();
+
+    //the segments saveIncrementally writes, created when first used
+    private SegmentedCatalog segmentedCatalog;
+
+    //writes the xml file for saveInBackground
+    private final BackgroundSaver backgroundSaver = new BackgroundSaver("apps-saver");
+
     public AppStoreAPI() {
         apps = new ArrayList<>();
+        appIndexByName = new HashMap<>();
+        appsById = new App[16];
+        appIndexById = new int[16];
+        nextAppId = 1;
+        appsByDeveloper = new HashMap<>();
+        appsByRating = new TreeMap<>();
+        ascendingViews = new EnumMap<>(AppSortKey.class);
+        descendingViews = new EnumMap<>(AppSortKey.class);
+        appNameIndex = new AppNameIndex();
+        appsByType = new EnumMap<>(AppType.class);
+        for (AppType appType : AppType.values()) {
+            appsByType.put(appType, new ArrayList<>());
+        }
     }
 
     /**
      * This method adds an app object to the apps array list within the AppStoreAPI.
+     * The app is given a new ID that stays the same while the app is stored, even when other apps are deleted or sorted.
      *
      * @param App an object of the app class.
      * @return the app that was added, null if adding of app was a failure.
      */
     public boolean addApp(App App) {
-        return apps.add(App);
+        return write(() -> storeApp(App, nextAppId));
+    }
+
+    /**
+     * This method adds an app with a given ID, so an app added again from the operation log keeps the ID that later
+     * logged changes refer to it by.
+     *
+     * @param App   the app to add.
+     * @param appId the ID to give it, a new one is given instead if it is already taken.
+     * @return true if the app was added.
+     */
+    private boolean storeApp(App App, int appId) {
+        return write(() -> {
+            if (apps.add(App)) {
+                int newAppId = (!isAppIdInRange(appId) || getAppById(appId) != null) ? nextAppId : appId;
+                nextAppId = Math.max(nextAppId, newAppId + 1);
+                App.setAppId(newAppId);
+                indexAppId(App, apps.size() - 1);
+                appsByType.get(App.getAppType()).add(App);
+                appsByDeveloper.computeIfAbsent(developerKey(App.getDeveloper()), key -> new ArrayList<>()).add(App);
+                appIndexByName.putIfAbsent(nameKey(App.getAppName()), apps.size() - 1);
+                addToRatingIndex(App);
+                appNameIndex.add(App);
+                invalidateSortedViews();
+                log(out -> {
+                    out.writeByte(LOG_ADD_APP_WITH_ID);
+                    out.writeInt(App.getAppId());
+                    OperationLog.writeApp(out, App);
+                });
+                return true;
+            }
+            return false;
+        });
     }
 
 
@@ -52,10 +199,42 @@ public class AppStoreAPI implements ISerializer {
      * @return the app at the index number given.
      */
     public App findApp(int index) {
-        if (isValidIndex(index)) {
-            return apps.get(index);
-        }
-        return null;
+        return read(() -> {
+            if (isValidIndex(index)) {
+                return apps.get(index);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * This method returns an app using the ID it was given when it was added.
+     *
+     * @param appId the ID of the app.
+     * @return the app with the ID given, null if no stored app has that ID.
+     */
+    public App getAppById(int appId) {
+        return read(() -> {
+            if (isValidAppId(appId)) {
+                return appsById[appId];
+            }
+            return null;
+        });
+    }
+
+    /**
+     * This method returns the current index of the app with the given ID.
+     *
+     * @param appId the ID of the app.
+     * @return the index of the app, -1 if no stored app has that ID.
+     */
+    public int getAppIndexById(int appId) {
+        return read(() -> {
+            if (isValidAppId(appId)) {
+                return appIndexById[appId];
+            }
+            return -1;
+        });
     }
 
     /**
@@ -70,16 +249,30 @@ public class AppStoreAPI implements ISerializer {
      * @return the boolean result of the update depending on its success.
      */
     public boolean updateProductivityApp(int indexToUpdate, Developer developer, String appName, double appSize, double appVersion, double appCost) {
-        App foundApp = findApp(indexToUpdate);
-        if ((foundApp instanceof ProductivityApp)) {
-            foundApp.setDeveloper(developer);
-            foundApp.setAppName(appName);
-            foundApp.setAppSize(appSize);
-            foundApp.setAppVersion(appVersion);
-            foundApp.setAppCost(appCost);
-            return true;
-        }
-        return false;
+        return write(() -> {
+            App foundApp = findApp(indexToUpdate);
+            if ((foundApp instanceof ProductivityApp)) {
+                updateAppDetails(foundApp, developer, appName, appSize, appVersion, appCost);
+                logUpdate(foundApp);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * This method can update a pre-existing Productivity App with new values, found using its ID.
+     *
+     * @param appId      the ID of the app the user wants to update.
+     * @param developer  the new developer of the app that the user will enter.
+     * @param appName    the new name of the app that the user will choose.
+     * @param appSize    the new size of the app that the user will choose.
+     * @param appVersion the new version of the app.
+     * @param appCost    the new cost of the app.
+     * @return the boolean result of the update depending on its success.
+     */
+    public boolean updateProductivityAppById(int appId, Developer developer, String appName, double appSize, double appVersion, double appCost) {
+        return write(() -> updateProductivityApp(getAppIndexById(appId), developer, appName, appSize, appVersion, appCost));
     }
 
     /**
@@ -95,17 +288,32 @@ public class AppStoreAPI implements ISerializer {
      * @return the boolean result of the update depending on its success.
      */
     public boolean updateEducationApp(int indexToUpdate, Developer developer, String appName, double appSize, double appVersion, double appCost, int level) {
-        App foundApp = findApp(indexToUpdate);
-        if ((foundApp instanceof EducationApp)) {
-            foundApp.setDeveloper(developer);
-            foundApp.setAppName(appName);
-            foundApp.setAppSize(appSize);
-            foundApp.setAppVersion(appVersion);
-            foundApp.setAppCost(appCost);
-            ((EducationApp) foundApp).setLevel(level);
-            return true;
-        }
-        return false;
+        return write(() -> {
+            App foundApp = findApp(indexToUpdate);
+            if ((foundApp instanceof EducationApp)) {
+                updateAppDetails(foundApp, developer, appName, appSize, appVersion, appCost);
+                ((EducationApp) foundApp).setLevel(level);
+                logUpdate(foundApp);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * This method can update a pre-existing Education App with new values, found using its ID.
+     *
+     * @param appId      the ID of the app the user wants to update.
+     * @param developer  the new developer of the app that the user will enter.
+     * @param appName    the new name of the app that the user will choose.
+     * @param appSize    the new size of the app that the user will choose.
+     * @param appVersion the new version of the app.
+     * @param appCost    the new cost of the app.
+     * @param level      the new level of the app.
+     * @return the boolean result of the update depending on its success.
+     */
+    public boolean updateEducationAppById(int appId, Developer developer, String appName, double appSize, double appVersion, double appCost, int level) {
+        return write(() -> updateEducationApp(getAppIndexById(appId), developer, appName, appSize, appVersion, appCost, level));
     }
 
     /**
@@ -121,17 +329,97 @@ public class AppStoreAPI implements ISerializer {
      * @return the boolean result of the update depending on its success.
      */
     public boolean updateGameApp(int indexToUpdate, Developer developer, String appName, double appSize, double appVersion, double appCost, boolean isMultiplayer) {
-        App foundApp = findApp(indexToUpdate);
-        if ((foundApp instanceof GameApp)) {
-            foundApp.setDeveloper(developer);
-            foundApp.setAppName(appName);
-            foundApp.setAppSize(appSize);
-            foundApp.setAppVersion(appVersion);
-            foundApp.setAppCost(appCost);
-            ((GameApp) foundApp).setMultiplayer(isMultiplayer);
-            return true;
+        return write(() -> {
+            App foundApp = findApp(indexToUpdate);
+            if ((foundApp instanceof GameApp)) {
+                updateAppDetails(foundApp, developer, appName, appSize, appVersion, appCost);
+                ((GameApp) foundApp).setMultiplayer(isMultiplayer);
+                logUpdate(foundApp);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * This method can update a pre-existing Game App with new values, found using its ID.
+     *
+     * @param appId         the ID of the app the user wants to update.
+     * @param developer     the new developer of the app that the user will enter.
+     * @param appName       the new name of the app that the user will choose.
+     * @param appSize       the new size of the app that the user will choose.
+     * @param appVersion    the new version of the app.
+     * @param appCost       the new cost of the app.
+     * @param isMultiplayer whether the app is still a multiplayer app or not.
+     * @return the boolean result of the update depending on its success.
+     */
+    public boolean updateGameAppById(int appId, Developer developer, String appName, double appSize, double appVersion, double appCost, boolean isMultiplayer) {
+        return write(() -> updateGameApp(getAppIndexById(appId), developer, appName, appSize, appVersion, appCost, isMultiplayer));
+    }
+
+    /**
+     * This method sets the values shared by every app type and keeps the name index in step with the new name.
+     *
+     * @param app        the app being updated.
+     * @param developer  the new developer of the app.
+     * @param appName    the new name of the app.
+     * @param appSize    the new size of the app.
+     * @param appVersion the new version of the app.
+     * @param appCost    the new cost of the app.
+     */
+    private void updateAppDetails(App app, Developer developer, String appName, double appSize, double appVersion, double appCost) {
+        String oldName = app.getAppName();
+        boolean renamed = !Objects.equals(nameKey(oldName), nameKey(appName));
+        //interned developers are the same object, so the names only need comparing when they aren't
+        boolean developerChanged = (app.getDeveloper() != developer) && !Objects.equals(developerKey(app.getDeveloper()), developerKey(developer));
+        String oldDeveloperKey = developerKey(app.getDeveloper());
+        app.setDeveloper(developer);
+        app.setAppName(appName);
+        app.setAppSize(appSize);
+        app.setAppVersion(appVersion);
+        app.setAppCost(appCost);
+        invalidateSortedViews();
+        if (renamed) {
+            appNameIndex.rename(app);
+            renameInIndexByName(app, oldName);
+        }
+        if (developerChanged) {
+            List<App> oldDeveloperApps = appsByDeveloper.get(oldDeveloperKey);
+            oldDeveloperApps.remove(app);
+            if (oldDeveloperApps.isEmpty()) {
+                appsByDeveloper.remove(oldDeveloperKey);
+            }
+            insertInIndexOrder(appsByDeveloper.computeIfAbsent(developerKey(developer), key -> new ArrayList<>()), app);
+        }
+    }
+
+    /**
+     * This method moves a renamed app in the index by name. The index holds the first app with each name, so the old
+     * name goes to the next app that still has it, if there is one, and the new name only moves to this app if it
+     * comes before the first app that already had it. Only the apps with the old name are looked at.
+     *
+     * @param app     the renamed app, already moved to its new name in the AppNameIndex.
+     * @param oldName the name the app had before.
+     */
+    private void renameInIndexByName(App app, String oldName) {
+        int index = appIndexById[app.getAppId()];
+        String oldKey = nameKey(oldName);
+        Integer oldIndex = appIndexByName.get(oldKey);
+        if (oldIndex != null && oldIndex == index) {
+            int first = -1;
+            for (App sameName : appNameIndex.appsNamed(oldName)) {
+                int sameNameIndex = appIndexById[sameName.getAppId()];
+                if (first == -1 || sameNameIndex < first) {
+                    first = sameNameIndex;
+                }
+            }
+            if (first == -1) {
+                appIndexByName.remove(oldKey);
+            } else {
+                appIndexByName.put(oldKey, first);
+            }
         }
-        return false;
+        appIndexByName.merge(nameKey(app.getAppName()), index, Math::min);
     }
 
     /**
@@ -140,7 +428,17 @@ public class AppStoreAPI implements ISerializer {
      * @return the number of total apps
      */
     public int numberOfApps() {
-        return apps.size();
+        return read(() -> apps.size());
+    }
+
+    /**
+     * This method returns the number of apps of one type stored in AppStoreAPI.
+     *
+     * @param appType the type of app to count.
+     * @return the number of apps of that type
+     */
+    public int numberOfAppsOfType(AppType appType) {
+        return read(() -> appsByType.get(appType).size());
     }
 
     /**
@@ -149,13 +447,7 @@ public class AppStoreAPI implements ISerializer {
      * @return the number of game apps
      */
     public int numberOfGameApps() {
-        int number = 0;
-        for (App app : apps) {
-            if (app instanceof GameApp) {
-                number++;
-            }
-        }
-        return number;
+        return numberOfAppsOfType(AppType.GAME);
     }
 
     /**
@@ -164,13 +456,7 @@ public class AppStoreAPI implements ISerializer {
      * @return the number of productivity apps
      */
     public int numberOfProductivityApps() {
-        int number = 0;
-        for (App app : apps) {
-            if (app instanceof ProductivityApp) {
-                number++;
-            }
-        }
-        return number;
+        return numberOfAppsOfType(AppType.PRODUCTIVITY);
     }
 
     /**
@@ -179,13 +465,7 @@ public class AppStoreAPI implements ISerializer {
      * @return the number of education apps
      */
     public int numberOfEducationApps() {
-        int number = 0;
-        for (App app : apps) {
-            if (app instanceof EducationApp) {
-                number++;
-            }
-        }
-        return number;
+        return numberOfAppsOfType(AppType.EDUCATION);
     }
 
     /**
@@ -195,10 +475,32 @@ public class AppStoreAPI implements ISerializer {
      * @return the deleted app
      */
     public App deleteAppByIndex(int index) {
-        if (isValidIndex(index)) {
-            return apps.remove(index);
-        }
-        return null;
+        return write(() -> {
+            if (isValidIndex(index)) {
+                App deletedApp = apps.remove(index);
+                appsMovedInBatch = true;
+                appsById[deletedApp.getAppId()] = null;
+                removeFromRatingIndex(deletedApp, deletedApp.calculateRating());
+                appNameIndex.remove(deletedApp);
+                reindexApps();
+                log(out -> {
+                    out.writeByte(LOG_DELETE_APP);
+                    out.writeInt(deletedApp.getAppId());
+                });
+                return deletedApp;
+            }
+            return null;
+        });
+    }
+
+    /**
+     * This method deletes the app with a specific ID in AppStoreAPI.
+     *
+     * @param appId the ID of the app that is to be deleted.
+     * @return the deleted app, null if no stored app has that ID.
+     */
+    public App deleteAppById(int appId) {
+        return write(() -> deleteAppByIndex(getAppIndexById(appId)));
     }
 
     /**
@@ -208,10 +510,12 @@ public class AppStoreAPI implements ISerializer {
      * @return the app at the requested index
      */
     public App getAppByIndex(int index) {
-        if (isValidIndex(index)) {
-            return apps.get(index);
-        }
-        return null;
+        return read(() -> {
+            if (isValidIndex(index)) {
+                return apps.get(index);
+            }
+            return null;
+        });
     }
 
     /**
@@ -220,10 +524,21 @@ public class AppStoreAPI implements ISerializer {
      * @return the app that has the requested name.
      */
     public App getAppByName(String name) {
-        for (App app : apps) {
-            if (Objects.equals(app.getAppName(), name)) return app;
-        }
-        return null;
+        return read(() -> {
+            Integer index = appIndexByName.get(nameKey(name));
+            if (index == null) {
+                return null;
+            }
+            App app = apps.get(index);
+            if (Objects.equals(app.getAppName(), name)) {
+                return app;
+            }
+            //the indexed app only differs by case, so an exact match can only be a later duplicate
+            for (int i = index + 1; i < apps.size(); i++) {
+                if (Objects.equals(apps.get(i).getAppName(), name)) return apps.get(i);
+            }
+            return null;
+        });
     }
 
     /**
@@ -232,12 +547,17 @@ public class AppStoreAPI implements ISerializer {
      * @return a String that either tells the user no apps have been stored yet or lists all stored apps.
      */
     public String listAllApps() {
-        if(apps.isEmpty()){return "No apps added yet";}
-        StringBuilder list = new StringBuilder("Apps: ");
-            for (App app : apps) {
-                list.append("Index: ").append(getAppIndex(app.getAppName())).append(" ").append(app).append("\n");
-            }
-            return list.toString();
+        return reportAllApps().toString();
+    }
+
+    /**
+     * This method lists all apps, and records how many apps were listed and at which indexes.
+     * It reads the latest snapshot, so it doesn't wait for the lock.
+     *
+     * @return an AppReport whose text is the same String listAllApps returns.
+     */
+    public AppReport reportAllApps() {
+        return snapshot.reportAllApps();
     }
 
     /**
@@ -246,15 +566,16 @@ public class AppStoreAPI implements ISerializer {
      * @return a String that either tells the user no apps have been stored yet or lists the summary of every app.
      */
     public String listSummaryOfAllApps() {
-        StringBuilder list = new StringBuilder("No apps");
-        if (!apps.isEmpty()) {
-            list = new StringBuilder("List of every App: " + "\n");
-            for (App app : apps) {
-                list.append("Index: ").append(getAppIndex(app.getAppName())).append(" ").append(app.appSummary()).append("\n");
-            }
-            return list.toString();
-        }
-        return list.toString();
+        return reportSummaryOfAllApps().toString();
+    }
+
+    /**
+     * This method lists the summary of all stored apps, and records how many apps were listed and at which indexes.
+     *
+     * @return an AppReport whose text is the same String listSummaryOfAllApps returns.
+     */
+    public AppReport reportSummaryOfAllApps() {
+        return read(() -> buildReport("List of every App: \n", "No apps", apps, app -> true, true));
     }
 
     /**
@@ -263,17 +584,16 @@ public class AppStoreAPI implements ISerializer {
      * @return a String that either tells the user no game apps have been stored yet or lists all stored game apps.
      */
     public String listAllGameApps() {
-        StringBuilder list = new StringBuilder("No Game apps");
-        if (!apps.isEmpty()) {
-            list = new StringBuilder("List of every Game App: " + "\n");
-            for (App app : apps) {
-                if (app instanceof GameApp) {
-                    list.append("Index: ").append(getAppIndex(app.getAppName())).append(" ").append(app).append("\n");
-                }
-            }
-            return list.toString();
-        }
-        return list.toString();
+        return reportAllGameApps().toString();
+    }
+
+    /**
+     * This method lists all Game apps, and records how many apps were listed and at which indexes.
+     *
+     * @return an AppReport whose text is the same String listAllGameApps returns.
+     */
+    public AppReport reportAllGameApps() {
+        return read(() -> buildReport("List of every Game App: \n", "No Game apps", appsByType.get(AppType.GAME), app -> true, false));
     }
 
     /**
@@ -282,17 +602,16 @@ public class AppStoreAPI implements ISerializer {
      * @return a String that either tells the user no education apps have been stored yet or lists all stored education apps.
      */
     public String listAllEducationApps() {
-        StringBuilder list = new StringBuilder("No Education apps");
-        if (!apps.isEmpty()) {
-            list = new StringBuilder("List of every Education App: " + "\n");
-            for (App app : apps) {
-                if (app instanceof EducationApp) {
-                    list.append("Index: ").append(getAppIndex(app.getAppName())).append(" ").append(app).append("\n");
-                }
-            }
-            return list.toString();
-        }
-        return list.toString();
+        return reportAllEducationApps().toString();
+    }
+
+    /**
+     * This method lists all education apps, and records how many apps were listed and at which indexes.
+     *
+     * @return an AppReport whose text is the same String listAllEducationApps returns.
+     */
+    public AppReport reportAllEducationApps() {
+        return read(() -> buildReport("List of every Education App: \n", "No Education apps", appsByType.get(AppType.EDUCATION), app -> true, false));
     }
 
     /**
@@ -301,17 +620,16 @@ public class AppStoreAPI implements ISerializer {
      * @return a String that either tells the user no apps have been stored yet or lists all stored productivity apps.
      */
     public String listAllProductivityApps() {
-        StringBuilder list = new StringBuilder("No Productivity apps");
-        if (!apps.isEmpty()) {
-            list = new StringBuilder("List of every Productivity App: " + "\n");
-            for (App app : apps) {
-                if (app instanceof ProductivityApp) {
-                    list.append("Index: ").append(getAppIndex(app.getAppName())).append(" ").append(app).append("\n");
-                }
-            }
-            return list.toString();
-        }
-        return list.toString();
+        return reportAllProductivityApps().toString();
+    }
+
+    /**
+     * This method lists all productivity apps, and records how many apps were listed and at which indexes.
+     *
+     * @return an AppReport whose text is the same String listAllProductivityApps returns.
+     */
+    public AppReport reportAllProductivityApps() {
+        return read(() -> buildReport("List of every Productivity App: \n", "No Productivity apps", appsByType.get(AppType.PRODUCTIVITY), app -> true, false));
     }
 
     /**
@@ -321,19 +639,27 @@ public class AppStoreAPI implements ISerializer {
      * @return a String that either tells the user no apps have been stored yet or lists all stored apps that contain the searched string.
      */
     public String listAllAppsByName(String name) {
-        StringBuilder list = new StringBuilder("No apps of this name.");
-        if (!apps.isEmpty()) {
-            list = new StringBuilder("List of every App with this name: " + "\n");
-            for (App app : apps) {
-                if (app.getAppName().toLowerCase(Locale.ROOT).contains(name.toLowerCase(Locale.ROOT))) {
-                    int i = 0;
-                    i++;
-                    list.append("Index: ").append(i).append(" ").append(app).append("\n");
-                }
-            }
-            return list.toString();
-        }
-        return list.toString();
+        return reportAllAppsByName(name).toString();
+    }
+
+    /**
+     * This method lists all apps containing a specific name, and records how many apps were listed and at which indexes.
+     *
+     * @param name apps containing this string will be returned.
+     * @return an AppReport whose text is the same String listAllAppsByName returns.
+     */
+    public AppReport reportAllAppsByName(String name) {
+        return read(() -> buildReport("List of every App with this name: \n", "No apps of this name.", inIndexOrder(appNameIndex.search(name)), app -> true, false));
+    }
+
+    /**
+     * This method lists all apps whose names start with a search string, ignoring case, for type-ahead searching.
+     *
+     * @param prefix apps whose names start with this string will be listed.
+     * @return an AppReport of the matching apps in index order.
+     */
+    public AppReport reportAllAppsByNamePrefix(String prefix) {
+        return read(() -> buildReport("List of every App starting with this name: \n", "No apps of this name.", inIndexOrder(appNameIndex.searchPrefix(prefix)), app -> true, false));
     }
 
     /**
@@ -343,19 +669,85 @@ public class AppStoreAPI implements ISerializer {
      * @return a String that either tells the user no apps have been stored yet or lists all stored apps with a rating equal to or higher than the requested rating.
      */
     public String listAllAppsAboveOrEqualAGivenStarRating(int rating) {
-        StringBuilder list = new StringBuilder("No apps have a rating of " + rating + " or above.");
-        if (!apps.isEmpty()) {
-            list = new StringBuilder("List of every App with this rating or higher: " + "\n");
-            for (App app : apps) {
-                if (app.calculateRating() >= rating) {
-                    int i = 0;
-                    i++;
-                    list.append("Index: ").append(i).append(" ").append(app).append("\n");
+        return reportAllAppsAboveOrEqualAGivenStarRating(rating).toString();
+    }
+
+    /**
+     * This method lists all apps with a rating equal to or higher than the given rating, and records how many apps were listed and at which indexes.
+     *
+     * @param rating apps with a rating equal to or higher than this int will be returned.
+     * @return an AppReport whose text is the same String listAllAppsAboveOrEqualAGivenStarRating returns.
+     */
+    public AppReport reportAllAppsAboveOrEqualAGivenStarRating(int rating) {
+        return read(() -> {
+            List<App> ratedApps = new ArrayList<>();
+            //the upper bound leaves out apps whose ratings all have no stars, as their NaN rating sorts above infinity
+            for (Set<App> appsWithRating : appsByRating.subMap((double) rating, true, Double.POSITIVE_INFINITY, true).values()) {
+                ratedApps.addAll(appsWithRating);
+            }
+            return buildReport("List of every App with this rating or higher: \n", "No apps have a rating of " + rating + " or above.", inIndexOrder(ratedApps), app -> true, false);
+        });
+    }
+
+    /**
+     * This method lists the highest rated apps, highest rating first.
+     * Apps with the same rating are listed in index order.
+     *
+     * @param numberOfApps the most apps to list.
+     * @return an AppReport of up to numberOfApps apps.
+     */
+    public AppReport reportTopRatedApps(int numberOfApps) {
+        return read(() -> {
+            List<App> topApps = new ArrayList<>();
+            for (Set<App> appsWithRating : appsByRating.headMap(Double.POSITIVE_INFINITY, true).descendingMap().values()) {
+                if (topApps.size() >= numberOfApps) {
+                    break;
                 }
+                List<App> sameRating = new ArrayList<>(appsWithRating);
+                sameRating.sort(Comparator.comparingInt(app -> appIndexById[app.getAppId()]));
+                topApps.addAll(sameRating.subList(0, Math.min(sameRating.size(), numberOfApps - topApps.size())));
+            }
+            return buildReport("Top Rated Apps: \n", "No apps", topApps, app -> true, true);
+        });
+    }
+
+    /**
+     * This method sorts apps found through one of the indexes into index order, so they list the same as a scan would.
+     *
+     * @param foundApps the apps, in any order.
+     * @return the same list, sorted by index.
+     */
+    private List<App> inIndexOrder(List<App> foundApps) {
+        foundApps.sort(Comparator.comparingInt(app -> appIndexById[app.getAppId()]));
+        return foundApps;
+    }
+
+    /**
+     * This method builds a report in one pass over the candidate apps, taking each app's index from the ID index
+     * rather than searching for it. The apps are listed in the order of the candidates, which is usually index order.
+     *
+     * @param heading       the text placed before the listed apps.
+     * @param noAppsMessage the text returned when no app is listed.
+     * @param candidates    the apps that may be listed, in the order they are listed.
+     * @param filter        decides which of the candidates are listed.
+     * @param summary       true to list the app summaries, false to list the full app details.
+     * @return the report of the apps listed.
+     */
+    private AppReport buildReport(String heading, String noAppsMessage, List<App> candidates, Predicate<App> filter, boolean summary) {
+        StringBuilder list = new StringBuilder(heading);
+        int[] indexes = new int[candidates.size()];
+        int count = 0;
+        for (App app : candidates) {
+            if (filter.test(app)) {
+                int index = appIndexById[app.getAppId()];
+                list.append("Index: ").append(index).append(" ").append(summary ? app.appSummary() : app.toString()).append("\n");
+                indexes[count++] = index;
             }
-            return list.toString();
         }
-        return list.toString();
+        if (count == 0) {
+            return new AppReport(noAppsMessage, new int[0]);
+        }
+        return new AppReport(list.toString(), Arrays.copyOf(indexes, count));
     }
 
     /**
@@ -365,12 +757,13 @@ public class AppStoreAPI implements ISerializer {
      * @return the index of the app that was searched for
      */
     public int getAppIndex(String appName) {
-        for (App app : apps) {
-            if (app.getAppName().equalsIgnoreCase(appName)) {
-                return apps.indexOf(app);
+        return read(() -> {
+            if (appName == null) {
+                return -1;
             }
-        }
-        return -1;
+            Integer index = appIndexByName.get(nameKey(appName));
+            return (index == null) ? -1 : index;
+        });
     }
 
     /**
@@ -379,17 +772,17 @@ public class AppStoreAPI implements ISerializer {
      * @return a String that either tells the user no recommended apps have been stored yet or lists the summary of all stored recommended apps.
      */
     public String listAllRecommendedApps() {
-        StringBuilder list = new StringBuilder("No recommended apps");
-        if (!apps.isEmpty()) {
-            for (App app : apps) {
-                if (app.isRecommendedApp()) {
-                    list = new StringBuilder("Recommended Apps: \n");
-                    list.append("Index: ").append(getAppIndex(app.getAppName())).append(" ").append(app.appSummary()).append("\n");
-                }
-            }
-            return list.toString();
-        }
-        return list.toString();
+        return reportAllRecommendedApps().toString();
+    }
+
+    /**
+     * This method lists all recommended apps regardless of app type, and records how many apps were listed and at which indexes.
+     * It reads the latest snapshot, so it doesn't wait for the lock.
+     *
+     * @return an AppReport whose text is the same String listAllRecommendedApps returns.
+     */
+    public AppReport reportAllRecommendedApps() {
+        return snapshot.reportAllRecommendedApps();
     }
 
     /**
@@ -398,18 +791,16 @@ public class AppStoreAPI implements ISerializer {
      * @return a String that either tells the user no recommended apps have been stored yet or lists the summary of all stored recommended Game apps.
      */
     public String listAllRecommendedGameApps() {
-        StringBuilder list = new StringBuilder("No recommended apps.");
-        if (!apps.isEmpty()) {
-            list = new StringBuilder("List of every recommended App: " + "\n");
-            for (App app : apps) {
-                if (app.isRecommendedApp() && app instanceof GameApp) {
-                    list = new StringBuilder("Recommended Apps: \n");
-                    list.append("Index: ").append(getAppIndex(app.getAppName())).append(" ").append(app.appSummary()).append("\n");
-                }
-            }
-            return list.toString();
-        }
-        return list.toString();
+        return reportAllRecommendedGameApps().toString();
+    }
+
+    /**
+     * This method lists all recommended Game apps, and records how many apps were listed and at which indexes.
+     *
+     * @return an AppReport whose text is the same String listAllRecommendedGameApps returns.
+     */
+    public AppReport reportAllRecommendedGameApps() {
+        return read(() -> buildReport("Recommended Apps: \n", "No recommended apps.", appsByType.get(AppType.GAME), App::isRecommendedApp, true));
     }
 
     /**
@@ -418,18 +809,16 @@ public class AppStoreAPI implements ISerializer {
      * @return a String that either tells the user no recommended apps have been stored yet or lists the summary of all stored recommended Education apps.
      */
     public String listAllRecommendedEducationApps() {
-        StringBuilder list = new StringBuilder("No recommended apps.");
-        if (!apps.isEmpty()) {
-            list = new StringBuilder("List of every recommended App: " + "\n");
-            for (App app : apps) {
-                if (app.isRecommendedApp() && app instanceof EducationApp) {
-                    list = new StringBuilder("Recommended Apps: \n");
-                    list.append("Index: ").append(getAppIndex(app.getAppName())).append(" ").append(app.appSummary()).append("\n");
-                }
-            }
-            return list.toString();
-        }
-        return list.toString();
+        return reportAllRecommendedEducationApps().toString();
+    }
+
+    /**
+     * This method lists all recommended Education apps, and records how many apps were listed and at which indexes.
+     *
+     * @return an AppReport whose text is the same String listAllRecommendedEducationApps returns.
+     */
+    public AppReport reportAllRecommendedEducationApps() {
+        return read(() -> buildReport("Recommended Apps: \n", "No recommended apps.", appsByType.get(AppType.EDUCATION), App::isRecommendedApp, true));
     }
 
     /**
@@ -438,18 +827,31 @@ public class AppStoreAPI implements ISerializer {
      * @return a String that either tells the user no recommended apps have been stored yet or lists the summary of all stored recommended Productivity apps.
      */
     public String listAllRecommendedProductivityApps() {
-        StringBuilder list = new StringBuilder("No recommended apps.");
-        if (!apps.isEmpty()) {
-            list = new StringBuilder("List of every recommended App: " + "\n");
-            for (App app : apps) {
-                if (app.isRecommendedApp() && app instanceof ProductivityApp) {
-                    list = new StringBuilder("Recommended Apps: \n");
-                    list.append("Index: ").append(getAppIndex(app.getAppName())).append(" ").append(app.appSummary()).append("\n");
-                }
-            }
-            return list.toString();
+        return reportAllRecommendedProductivityApps().toString();
+    }
+
+    /**
+     * This method lists all recommended Productivity apps, and records how many apps were listed and at which indexes.
+     *
+     * @return an AppReport whose text is the same String listAllRecommendedProductivityApps returns.
+     */
+    public AppReport reportAllRecommendedProductivityApps() {
+        return read(() -> buildReport("Recommended Apps: \n", "No recommended apps.", appsByType.get(AppType.PRODUCTIVITY), App::isRecommendedApp, true));
+    }
+
+    /**
+     * This method returns the stored apps by a developer, in index order.
+     * Developers are matched by name, the same way DeveloperAPI tells developers apart,
+     * so apps still match after the developer's website is updated.
+     *
+     * @param developer the developer whose apps are wanted.
+     * @return the apps by the developer, an empty list if there are none.
+     */
+    private List<App> appsOfDeveloper(Developer developer) {
+        if (developer == null) {
+            return Collections.emptyList();
         }
-        return list.toString();
+        return appsByDeveloper.getOrDefault(developerKey(developer), Collections.emptyList());
     }
 
     /**
@@ -459,19 +861,17 @@ public class AppStoreAPI implements ISerializer {
      * @return a String containing all apps by the developer.
      */
     public String listAllAppsByChosenDeveloper(Developer developer) {
-        StringBuilder list = new StringBuilder("No apps for developer: " + developer);
-        if (!apps.isEmpty()) {
-            list = new StringBuilder("List of every App from this developer: " + "\n");
-            for (App app : apps) {
-                if (app.getDeveloper().equals(developer)) {
-                    int i = 0;
-                    i++;
-                    list.append("Index: ").append(i).append(" ").append(app).append("\n");
-                }
-            }
-            return list.toString();
-        }
-        return list.toString();
+        return reportAllAppsByChosenDeveloper(developer).toString();
+    }
+
+    /**
+     * This method lists all apps by a specific developer, and records how many apps were listed and at which indexes.
+     *
+     * @param developer the developer whose apps will be listed.
+     * @return an AppReport whose text is the same String listAllAppsByChosenDeveloper returns.
+     */
+    public AppReport reportAllAppsByChosenDeveloper(Developer developer) {
+        return read(() -> buildReport("List of every App from this developer: \n", "No apps for developer: " + developer, appsOfDeveloper(developer), app -> true, false));
     }
 
     /**
@@ -481,13 +881,7 @@ public class AppStoreAPI implements ISerializer {
      * @return the number of apps made by the developer.
      */
     public int numberOfAppsByChosenDeveloper(Developer developer) {
-        int numberOfApps = 0;
-        for (App app : apps) {
-            if (app.getDeveloper().equals(developer)) {
-                numberOfApps++;
-            }
-        }
-        return numberOfApps;
+        return read(() -> appsOfDeveloper(developer).size());
     }
 
     /**
@@ -496,25 +890,132 @@ public class AppStoreAPI implements ISerializer {
      * @return a random stored app
      */
     public App randomApp() {
-        int random = (int) (Math.random() * apps.size());
-        return apps.get(random);
+        return read(() -> {
+            int random = (int) (Math.random() * apps.size());
+            return apps.get(random);
+        });
     }
 
     /**
      * This method sorts all apps by name, alphabetically ascending
      */
     public void sortAppsByNameAscending() {
-        for (int i = apps.size() - 1; i >= 0; i--) {
-            int highestIndex = 0;
-            for (int z = 0; z <= i; z++) {
-                if (apps.get(z).getAppName().compareTo(apps.get(highestIndex).getAppName()) > 0) {
-                    highestIndex = z;
+        sortApps(AppSortKey.NAME, true);
+    }
+
+    /**
+     * This method sorts all apps by the chosen key and direction.
+     * Apps with equal values keep their order. Catalogs of PARALLEL_SORT_THRESHOLD apps or more are sorted in parallel.
+     *
+     * @param sortKey   the value to sort the apps by.
+     * @param ascending true for lowest value first, false for highest value first.
+     */
+    public void sortApps(AppSortKey sortKey, boolean ascending) {
+        write(() -> {
+            sortApps(sortKey, ascending, apps.size() >= PARALLEL_SORT_THRESHOLD);
+            return null;
+        });
+    }
+
+    /**
+     * This method sorts all apps by the chosen key and direction, choosing whether to sort in parallel.
+     * Both ways use a stable O(n log n) merge sort, so apps with equal values keep their order.
+     *
+     * @param sortKey   the value to sort the apps by.
+     * @param ascending true for lowest value first, false for highest value first.
+     * @param parallel  true to split the sort across the common fork-join pool.
+     */
+    public void sortApps(AppSortKey sortKey, boolean ascending, boolean parallel) {
+        write(() -> {
+            Comparator<App> comparator = sortKey.comparator(ascending);
+            if (parallel) {
+                App[] sorted = apps.toArray(new App[0]);
+                Arrays.parallelSort(sorted, comparator);
+                for (int i = 0; i < sorted.length; i++) {
+                    apps.set(i, sorted[i]);
                 }
+            } else {
+                apps.sort(comparator);
             }
-            swapApps(apps, i, highestIndex);
+            appsMovedInBatch = true;
+            reindexApps();
+            log(out -> {
+                out.writeByte(LOG_SORT_APPS);
+                out.writeByte(sortKey.ordinal());
+                out.writeBoolean(ascending);
+            });
+            return null;
+        });
+    }
+
+    /**
+     * This method lists all apps in the order of the chosen key and direction, without changing the order of the apps list.
+     * The indexes shown are the apps' real indexes, so they can still be used with the other methods.
+     *
+     * @param sortKey   the value to order the apps by.
+     * @param ascending true for lowest value first, false for highest value first.
+     * @return a String that either tells the user no apps have been stored yet or lists all apps in sorted order.
+     */
+    public String listAppsSortedBy(AppSortKey sortKey, boolean ascending) {
+        return reportAppsSortedBy(sortKey, ascending).toString();
+    }
+
+    /**
+     * This method lists all apps in the order of the chosen key and direction, without changing the order of the apps list.
+     *
+     * @param sortKey   the value to order the apps by.
+     * @param ascending true for lowest value first, false for highest value first.
+     * @return an AppReport whose indexes are the real indexes of the apps, in sorted order.
+     */
+    public AppReport reportAppsSortedBy(AppSortKey sortKey, boolean ascending) {
+        return read(() -> {
+            int[] sortedIndexes = sortedView(sortKey, ascending);
+            List<App> sortedApps = new ArrayList<>(sortedIndexes.length);
+            for (int index : sortedIndexes) {
+                sortedApps.add(apps.get(index));
+            }
+            return buildReport("Apps sorted by " + sortKey.name().toLowerCase(Locale.ROOT) + ": \n", "No apps added yet", sortedApps, app -> true, false);
+        });
+    }
+
+    /**
+     * This method returns the indexes of the apps in the order of the chosen key and direction.
+     * The order is cached, so asking again before the apps change doesn't sort again.
+     *
+     * @param sortKey   the value to order the apps by.
+     * @param ascending true for lowest value first, false for highest value first.
+     * @return the indexes of the apps in sorted order.
+     */
+    private int[] sortedView(AppSortKey sortKey, boolean ascending) {
+        EnumMap<AppSortKey, int[]> views = ascending ? ascendingViews : descendingViews;
+        //readers share the read lock, so filling in the cache is synchronized on it
+        synchronized (views) {
+            int[] view = views.get(sortKey);
+            if (view == null) {
+                App[] sorted = apps.toArray(new App[0]);
+                if (sorted.length >= PARALLEL_SORT_THRESHOLD) {
+                    Arrays.parallelSort(sorted, sortKey.comparator(ascending));
+                } else {
+                    Arrays.sort(sorted, sortKey.comparator(ascending));
+                }
+                view = new int[sorted.length];
+                for (int i = 0; i < sorted.length; i++) {
+                    view[i] = appIndexById[sorted[i].getAppId()];
+                }
+                views.put(sortKey, view);
+            }
+            return view;
         }
     }
 
+    /**
+     * This method drops every cached sorted view, after apps are added, removed, moved or changed.
+     */
+    private void invalidateSortedViews() {
+        ascendingViews.clear();
+        descendingViews.clear();
+    }
+
     /**
      * This method swaps the requested apps in the array list. This method is used in the sorting method.
      * @param apps    The array list of the apps that will be swapped
@@ -534,47 +1035,814 @@ public class AppStoreAPI implements ISerializer {
     //---------------------
 
     public void simulateRatings() {
-        for (App app : apps) {
-            app.addRating(generateRandomRating());
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < apps.size(); i++) {
+                addRating(i, generateRandomRating());
+            }
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /**
+     * This method simulates a number of random ratings for every app, for load testing with realistic numbers of ratings.
+     * The apps are split into tasks of APPS_PER_SIMULATION_TASK apps that are rated at the same time on a fork-join
+     * pool. Each task draws from its own SplittableRandom, split from one seeded with the given seed, so the same seed
+     * gives every app the same ratings whichever threads run the tasks.
+     * The ratings are submitted to the apps as they are generated, then drained, so they are logged and indexed
+     * like any other ratings.
+     *
+     * @param ratingsPerApp the number of ratings to give each app.
+     * @param seed          the seed the ratings are generated from.
+     * @param pool          the fork-join pool to generate the ratings on.
+     * @return the number of ratings added.
+     */
+    public int simulateRatings(int ratingsPerApp, long seed, ForkJoinPool pool) {
+        return write(() -> {
+            if (ratingsPerApp <= 0 || apps.isEmpty()) {
+                return 0;
+            }
+            pool.invoke(new SimulateRatings(apps, appsWithSubmittedRatings, 0, apps.size(), ratingsPerApp, new SplittableRandom(seed)));
+            return drainSubmittedRatings();
+        });
+    }
+
+    /**
+     * This method simulates a number of random ratings for every app on the common fork-join pool.
+     *
+     * @param ratingsPerApp the number of ratings to give each app.
+     * @param seed          the seed the ratings are generated from.
+     * @return the number of ratings added.
+     */
+    public int simulateRatings(int ratingsPerApp, long seed) {
+        return simulateRatings(ratingsPerApp, seed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * This task rates the apps from one index up to another, splitting the range in half, and its random number
+     * generator with it, until it is one task's worth of apps.
+     */
+    private static class SimulateRatings extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<App> appsToRate;
+        private final Set<App> appsToDrain;
+        private final int from;
+        private final int to;
+        private final int ratingsPerApp;
+        private final SplittableRandom random;
+
+        SimulateRatings(List<App> appsToRate, Set<App> appsToDrain, int from, int to, int ratingsPerApp, SplittableRandom random) {
+            this.appsToRate = appsToRate;
+            this.appsToDrain = appsToDrain;
+            this.from = from;
+            this.to = to;
+            this.ratingsPerApp = ratingsPerApp;
+            this.random = random;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= APPS_PER_SIMULATION_TASK) {
+                for (int i = from; i < to; i++) {
+                    App app = appsToRate.get(i);
+                    for (int r = 0; r < ratingsPerApp; r++) {
+                        if (app.submitRating(generateRandomRating(random))) {
+                            appsToDrain.add(app);
+                        }
+                    }
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                //the split is made here, before either half runs, so each half always gets the same generator
+                SplittableRandom upperRandom = random.split();
+                invokeAll(new SimulateRatings(appsToRate, appsToDrain, from, middle, ratingsPerApp, random),
+                        new SimulateRatings(appsToRate, appsToDrain, middle, to, ratingsPerApp, upperRandom));
+            }
         }
     }
 
+    /**
+     * This method adds a rating to the app at an index. Going through AppStoreAPI, rather than the app itself,
+     * means the rating is written to the operation log.
+     *
+     * @param index  the index of the app being rated.
+     * @param rating the rating to add.
+     * @return true if the rating was added, false if the index is invalid.
+     */
+    public boolean addRating(int index, Rating rating) {
+        return write(() -> {
+            App app = getAppByIndex(index);
+            if (app == null) {
+                return false;
+            }
+            app.addRating(rating);
+            appsChangedInBatch.add(app);
+            log(out -> {
+                out.writeByte(LOG_ADD_RATING);
+                out.writeInt(app.getAppId());
+                OperationLog.writeRating(out, rating);
+            });
+            return true;
+        });
+    }
+
+    /**
+     * This method submits a rating to the app with an ID, for threads that add ratings faster than the write lock
+     * allows. It only takes the shared read lock to find the app, then hands the rating to App.submitRating, so
+     * threads rating the same app don't wait for each other. The rating is added to the app, and logged, by the
+     * next drainSubmittedRatings, which every save does first.
+     *
+     * @param appId  the ID of the app being rated.
+     * @param rating the rating to add.
+     * @return true if the rating was submitted, false if there is no app with the ID.
+     */
+    public boolean submitRating(int appId, Rating rating) {
+        return read(() -> {
+            App app = getAppById(appId);
+            if (app == null) {
+                return false;
+            }
+            if (app.submitRating(rating)) {
+                appsWithSubmittedRatings.add(app);
+            }
+            return true;
+        });
+    }
+
+    /**
+     * This method adds the ratings submitted with submitRating to their apps, writing each to the operation log
+     * and moving the apps in the rating index. Only the apps that have had ratings submitted are gone through.
+     *
+     * @return the number of ratings added.
+     */
+    public int drainSubmittedRatings() {
+        return write(() -> {
+            int drained = 0;
+            Iterator<App> pending = appsWithSubmittedRatings.iterator();
+            while (pending.hasNext()) {
+                App app = pending.next();
+                //taken out before the app is drained, as a rating submitted during the drain puts it back
+                pending.remove();
+                if (getAppById(app.getAppId()) != app) {
+                    //the app has been deleted, or replaced by a load, so its ratings have nowhere to go
+                    app.drainSubmittedRatings();
+                } else {
+                    int before = app.getRatings().size();
+                    drained += app.drainSubmittedRatings();
+                    appsChangedInBatch.add(app);
+                    List<Rating> ratings = app.getRatings();
+                    for (int i = before; i < ratings.size(); i++) {
+                        Rating rating = ratings.get(i);
+                        log(out -> {
+                            out.writeByte(LOG_ADD_RATING);
+                            out.writeInt(app.getAppId());
+                            OperationLog.writeRating(out, rating);
+                        });
+                    }
+                }
+            }
+            return drained;
+        });
+    }
+
     //---------------------
     // Validation methods
     //---------------------
 
     public boolean isValidIndex(int index) {
-        return (index >= 0) && (index < apps.size());
+        return read(() -> (index >= 0) && (index < apps.size()));
+    }
+
+    public boolean isValidAppId(int appId) {
+        return read(() -> (appId > 0) && (appId < appsById.length) && (appsById[appId] != null));
+    }
+
+    //---------------------
+    // Locking methods
+    //---------------------
+
+    /**
+     * An action run while a lock is held, which can return a value and throw the exceptions of the method it is in.
+     */
+    @FunctionalInterface
+    private interface LockedAction<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    private <T, E extends Exception> T read(LockedAction<T, E> action) throws E {
+        lock.readLock().lock();
+        try {
+            return action.run();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private <T, E extends Exception> T write(LockedAction<T, E> action) throws E {
+        lock.writeLock().lock();
+        try {
+            return action.run();
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /**
+     * This method releases the write lock. When it is the outermost hold, the changes made while it was held are
+     * one batch, and the snapshot of them is published before other threads can take the lock.
+     */
+    private void unlockWrite() {
+        try {
+            if (lock.getWriteHoldCount() == 1) {
+                writeBatches++;
+                publishSnapshot();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * This method publishes the snapshot of the apps at the end of a batch of changes. When the batch only changed
+     * apps in place or added them, only those apps are copied. When it removed or moved any, every app is checked
+     * against the last snapshot, which costs about as much as the delete, sort or load that moved them.
+     */
+    private void publishSnapshot() {
+        try {
+            if (appsMovedInBatch) {
+                snapshot = snapshot.next(apps);
+            } else {
+                int[] changedIndexes = new int[appsChangedInBatch.size()];
+                int count = 0;
+                for (App app : appsChangedInBatch) {
+                    changedIndexes[count++] = appIndexById[app.getAppId()];
+                }
+                snapshot = snapshot.next(apps, changedIndexes);
+            }
+        } finally {
+            appsChangedInBatch.clear();
+            appsMovedInBatch = false;
+        }
+    }
+
+    /**
+     * This method returns the apps as they were at the end of the last batch of changes, without taking the lock.
+     *
+     * @return the latest snapshot, which doesn't change while it is being read.
+     */
+    public CatalogSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    //---------------------
+    // Index methods
+    //---------------------
+
+    /**
+     * This method returns the key an app name is stored under in the name index.
+     * Names are compared case-insensitively, the same as getAppIndex always has.
+     *
+     * @param appName the name of the app.
+     * @return the lower-cased name, or null if there is no name.
+     */
+    private static String nameKey(String appName) {
+        return (appName == null) ? null : appName.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * This method stores an app and its index in the ID arrays, growing them when the ID doesn't fit.
+     *
+     * @param app   the app, which already has its ID set.
+     * @param index the index of the app in the apps list.
+     */
+    private void indexAppId(App app, int index) {
+        int appId = app.getAppId();
+        if (appId >= appsById.length) {
+            int newLength = Math.max(appsById.length * 2, appId + 1);
+            appsById = Arrays.copyOf(appsById, newLength);
+            appIndexById = Arrays.copyOf(appIndexById, newLength);
+        }
+        appsById[appId] = app;
+        appIndexById[appId] = index;
+    }
+
+    /**
+     * This method returns the key a developer's apps are stored under.
+     *
+     * @param developer the developer of an app.
+     * @return the lower-cased developer name, or null if the app has no developer.
+     */
+    private static String developerKey(Developer developer) {
+        return (developer == null) ? null : nameKey(developer.getDeveloperName());
+    }
+
+    /**
+     * This method adds an app to a list kept in index order, using a binary search on the indexes of the apps already in it.
+     *
+     * @param appsInIndexOrder the list the app is added to.
+     * @param app              the app to add.
+     */
+    private void insertInIndexOrder(List<App> appsInIndexOrder, App app) {
+        int index = appIndexById[app.getAppId()];
+        int low = 0;
+        int high = appsInIndexOrder.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (appIndexById[appsInIndexOrder.get(middle).getAppId()] < index) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        appsInIndexOrder.add(low, app);
+    }
+
+    /**
+     * This method adds a stored app to the rating index and listens for changes to its rating.
+     *
+     * @param app the app being stored.
+     */
+    private void addToRatingIndex(App app) {
+        appsByRating.computeIfAbsent(app.calculateRating(), key -> new HashSet<>()).add(app);
+        app.setRatingListener(ratingIndexUpdater);
+    }
+
+    /**
+     * This method takes an app out of the rating index.
+     *
+     * @param app    the app being removed.
+     * @param rating the rating the app is stored under.
+     */
+    private void removeFromRatingIndex(App app, double rating) {
+        Set<App> appsWithRating = appsByRating.get(rating);
+        if (appsWithRating != null && appsWithRating.remove(app) && appsWithRating.isEmpty()) {
+            appsByRating.remove(rating);
+        }
+        app.setRatingListener(null);
+    }
+
+    /**
+     * This method moves an app in the rating index after a rating added to it has changed its average.
+     *
+     * @param app       the app whose rating changed.
+     * @param oldRating the rating the app is stored under.
+     */
+    private void moveInRatingIndex(App app, double oldRating) {
+        removeFromRatingIndex(app, oldRating);
+        addToRatingIndex(app);
+        ascendingViews.remove(AppSortKey.RATING);
+        descendingViews.remove(AppSortKey.RATING);
+    }
+
+    /**
+     * This method rebuilds the rating index after the apps list has been replaced by a load.
+     */
+    private void rebuildRatingIndex() {
+        appsByRating.clear();
+        for (App app : apps) {
+            addToRatingIndex(app);
+        }
+    }
+
+    /**
+     * This method rebuilds the name index, the index of every ID, the type lists and the developer lists from the apps list.
+     * It is used after changes that move apps to new positions (deleting, sorting, loading) or rename them.
+     */
+    private void reindexApps() {
+        invalidateSortedViews();
+        appIndexByName.clear();
+        appsByDeveloper.clear();
+        for (List<App> appsOfType : appsByType.values()) {
+            appsOfType.clear();
+        }
+        for (int i = 0; i < apps.size(); i++) {
+            App app = apps.get(i);
+            appIndexByName.putIfAbsent(nameKey(app.getAppName()), i);
+            appIndexById[app.getAppId()] = i;
+            appsByType.get(app.getAppType()).add(app);
+            appsByDeveloper.computeIfAbsent(developerKey(app.getDeveloper()), key -> new ArrayList<>()).add(app);
+        }
+    }
+
+    /**
+     * This method checks an ID read from a file or the log can be stored in the ID arrays.
+     *
+     * @param appId the ID.
+     * @return true if the ID is above 0 and no more than MAX_APP_ID_GAP past the number of apps.
+     */
+    private boolean isAppIdInRange(int appId) {
+        return (appId > 0) && (appId <= apps.size() + MAX_APP_ID_GAP);
+    }
+
+    /**
+     * This method rebuilds the ID arrays after the apps list has been replaced by a load.
+     * Loaded apps keep the IDs they were saved with. Apps from older files without an ID,
+     * with an ID already taken by another loaded app, or with an ID out of range, are given a new one.
+     */
+    private void reassignAppIds() {
+        nextAppId = 1;
+        for (App app : apps) {
+            if (isAppIdInRange(app.getAppId())) {
+                nextAppId = Math.max(nextAppId, app.getAppId() + 1);
+            }
+        }
+        appsById = new App[Math.max(16, nextAppId + apps.size())];
+        appIndexById = new int[appsById.length];
+        for (App app : apps) {
+            if (!isAppIdInRange(app.getAppId()) || appsById[app.getAppId()] != null) {
+                app.setAppId(nextAppId++);
+            }
+            appsById[app.getAppId()] = app;
+        }
     }
 
     //---------------------
     // Persistence methods
     //---------------------
 
+    /**
+     * The load method reads the apps in the xml file one at a time with a streaming parser,
+     * rather than building the whole document in memory first, and then rebuilds the indexes.
+     *
+     * @throws Exception An exception is thrown if an error occurred during the load e.g. a missing file.
+     */
     public void load() throws Exception {
-        //list of classes that you wish to include in the serialisation, separated by a comma
-        Class<?>[] classes = new Class[]{App.class, EducationApp.class, GameApp.class, ProductivityApp.class, Rating.class};
+        lock.writeLock().lock();
+        try {
+            List<App> loadedApps = new ArrayList<>();
+            try (Reader in = new BufferedReader(new FileReader(fileName()))) {
+                XmlCatalogReader.readApps(in, loadedApps::add);
+            }
+            replaceApps(loadedApps);
+            replayOperationLog();
+            logMatchesFile = true;
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /**
+     * The loadSnapshot method reads the apps from the binary snapshot file, which is much smaller and faster to read
+     * than the xml file.
+     *
+     * @throws Exception An exception is thrown if an error occurred during the load e.g. a missing file.
+     */
+    public void loadSnapshot() throws Exception {
+        lock.writeLock().lock();
+        try {
+            List<App> loadedApps = new ArrayList<>();
+            try (InputStream in = new FileInputStream(snapshotFileName())) {
+                BinaryCatalog.read(in, loadedApps::add);
+            }
+            replaceApps(loadedApps);
+        } finally {
+            unlockWrite();
+        }
+    }
 
-        //setting up the x stream object with default security and the above classes
-        XStream xstream = new XStream(new DomDriver());
-        XStream.setupDefaultSecurity(xstream);
-        xstream.allowTypes(classes);
+    /**
+     * The loadSnapshotInParallel method reads the apps from the binary snapshot file like loadSnapshot, but maps the
+     * file and decodes chunks of apps on the common fork-join pool, so large catalogs load faster with more cores.
+     * The apps keep the order they were saved in.
+     *
+     * @throws Exception An exception is thrown if an error occurred during the load e.g. a missing file,
+     *                   or a snapshot written before the format had an index of the apps.
+     */
+    public void loadSnapshotInParallel() throws Exception {
+        lock.writeLock().lock();
+        try {
+            List<App> loadedApps;
+            try (MappedCatalog catalog = new MappedCatalog(new File(snapshotFileName()))) {
+                loadedApps = catalog.readAllApps(ForkJoinPool.commonPool());
+            }
+            replaceApps(loadedApps);
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /**
+     * The saveSnapshot method writes the apps to the binary snapshot file.
+     *
+     * @throws Exception An exception is thrown if an error occurred during the save e.g. drive is full.
+     */
+    public void saveSnapshot() throws Exception {
+        drainSubmittedRatings();
+        lock.readLock().lock();
+        try {
+            AtomicFileWriter.write(new File(snapshotFileName()), out -> BinaryCatalog.write(out, apps));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
 
-        //doing the actual serialisation to an XML file
-        ObjectInputStream in = xstream.createObjectInputStream(new FileReader(fileName()));
-        apps = (List<App>) in.readObject();
-        in.close();
+    /**
+     * The saveIncrementally method saves the apps as segments of the binary snapshot format, and only writes the
+     * segments holding apps that have been added, moved or changed since the last incremental save or load.
+     *
+     * @return how many segments, apps and bytes were written.
+     * @throws Exception An exception is thrown if an error occurred during the save e.g. drive is full.
+     */
+    public SegmentedCatalog.SaveResult saveIncrementally() throws Exception {
+        return write(() -> {
+            drainSubmittedRatings();
+            return segmentedCatalog().save(apps);
+        });
     }
 
+    /**
+     * The loadSegments method reads the apps saved by saveIncrementally.
+     * Only apps loaded from the segments are marked clean, as apps loaded from the xml or snapshot file may differ
+     * from the segments, and have to be written by the next incremental save.
+     *
+     * @throws Exception An exception is thrown if an error occurred during the load e.g. a missing segment.
+     */
+    public void loadSegments() throws Exception {
+        lock.writeLock().lock();
+        try {
+            replaceApps(segmentedCatalog().load());
+            //giving the apps the interned developers isn't a change that needs saving
+            for (App app : apps) {
+                app.markClean();
+            }
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    private SegmentedCatalog segmentedCatalog() {
+        if (segmentedCatalog == null) {
+            segmentedCatalog = new SegmentedCatalog(new File(segmentsDirectoryName()));
+        }
+        return segmentedCatalog;
+    }
+
+    /**
+     * This method swaps in a newly loaded apps list and rebuilds every index from it.
+     *
+     * @param loadedApps the apps that were loaded.
+     */
+    private void replaceApps(List<App> loadedApps) {
+        for (App app : apps) {
+            app.setRatingListener(null);
+        }
+        apps = loadedApps;
+        appsMovedInBatch = true;
+        //the apps only match the xml file again once load has replayed the log onto them, or they are saved
+        logMatchesFile = false;
+        for (App app : apps) {
+            app.setDeveloper(developerInterner.intern(app.getDeveloper()));
+        }
+        reassignAppIds();
+        reindexApps();
+        rebuildRatingIndex();
+        appNameIndex.clear();
+        for (App app : apps) {
+            appNameIndex.add(app);
+        }
+    }
+
+    /**
+     * The save method uses the shared XStream in CatalogXStream to write all the apps to the xml file.
+     * The file is replaced atomically, so a failed save leaves the last saved file in place rather than a truncated one.
+     * Everything in the operation log is then part of the file, so the log is emptied.
+     *
+     * @throws Exception An exception is thrown if an error occurred during the save e.g. drive is full.
+     */
     public void save() throws Exception {
-        XStream xstream = new XStream(new DomDriver());
-        ObjectOutputStream out = xstream.createObjectOutputStream(new FileWriter(fileName()));
-        out.writeObject(apps);
-        out.close();
+        drainSubmittedRatings();
+        long writeBatchesWhenRead;
+        lock.readLock().lock();
+        try {
+            writeBatchesWhenRead = writeBatches;
+            long logMark = (operationLog == null) ? 0 : operationLog.mark();
+            writeXml(apps);
+            if (operationLog != null) {
+                operationLog.discardUpTo(logMark);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        fileWritten(writeBatchesWhenRead);
+    }
+
+    /**
+     * The saveInBackground method writes the apps to the xml file on a background thread, from the copies in the
+     * latest snapshot, so nothing has to be copied. The apps can carry on changing while the file is written, and the
+     * file holds the apps as they were when this method was called.
+     * Only the logged changes made before then are discarded once the file is written.
+     *
+     * @return a future that completes when the file has been written.
+     */
+    public CompletableFuture<Void> saveInBackground() {
+        drainSubmittedRatings();
+        return read(() -> {
+            //no write can be under way while the read lock is held, so the latest snapshot holds the apps as they are
+            List<App> appsToWrite = new ArrayList<>(snapshot.getApps());
+            long writeBatchesWhenRead = writeBatches;
+            OperationLog log = operationLog;
+            long logMark;
+            try {
+                logMark = (log == null) ? 0 : log.mark();
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+            return backgroundSaver.submit(() -> {
+                writeXml(appsToWrite);
+                if (log != null) {
+                    log.discardUpTo(logMark);
+                }
+                fileWritten(writeBatchesWhenRead);
+            });
+        });
+    }
+
+    /**
+     * This method is called once the xml file has been written, and starts logging changes on top of it.
+     * If the apps have changed since they were read for the file, and the changes weren't logged because the log
+     * didn't match the last file, the file and log don't add up to the apps, so logging waits for the next save.
+     *
+     * @param writeBatchesWhenRead the number of write batches when the apps were read for the file.
+     */
+    private void fileWritten(long writeBatchesWhenRead) {
+        write(() -> {
+            if (writeBatches == writeBatchesWhenRead) {
+                logMatchesFile = true;
+            }
+            return null;
+        });
+    }
+
+    private void writeXml(List<App> appsToWrite) throws IOException {
+        AtomicFileWriter.write(new File(fileName()), out -> CatalogXStream.write(out, appsToWrite));
+    }
+
+    //---------------------
+    // Operation log methods
+    //---------------------
+
+    /**
+     * This method starts writing every change to the operation log file, so a change is saved without writing the
+     * whole catalog. The log holds the changes made since the xml file was last saved, and load replays it onto the file.
+     * Changes are only logged once the apps have been loaded from the xml file or saved to it, so a session that starts
+     * without loading doesn't log changes that load would then replay onto different apps.
+     *
+     * @param batchSize how many changes are written before they are forced to disk, 1 forces every change.
+     * @throws IOException if the log file can't be opened.
+     */
+    public void openOperationLog(int batchSize) throws IOException {
+        lock.writeLock().lock();
+        try {
+            closeOperationLog();
+            operationLog = new OperationLog(new File(logFileName()), batchSize);
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /**
+     * This method forces any logged changes to disk and stops logging.
+     *
+     * @throws IOException if the log file can't be closed.
+     */
+    public void closeOperationLog() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (operationLog != null) {
+                operationLog.close();
+                operationLog = null;
+            }
+        } finally {
+            unlockWrite();
+        }
+    }
+
+    /**
+     * This method saves the catalog in full once the operation log holds COMPACTION_THRESHOLD changes,
+     * which empties the log so loading doesn't have to replay too many changes.
+     *
+     * @return true if the catalog was saved.
+     * @throws Exception An exception is thrown if an error occurred during the save.
+     */
+    public boolean saveIfLogIsFull() throws Exception {
+        boolean full = read(() -> operationLog != null && operationLog.numberOfRecords() >= COMPACTION_THRESHOLD);
+        //save drains the submitted ratings under the write lock, which can't be taken while the read lock is held
+        if (full) {
+            save();
+        }
+        return full;
+    }
+
+    private void log(OperationLog.Entry entry) {
+        if (operationLog != null && logMatchesFile) {
+            try {
+                operationLog.append(entry);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void logUpdate(App app) {
+        //every update ends by logging the app, so this is where it is noted as changed for the snapshot
+        appsChangedInBatch.add(app);
+        log(out -> {
+            out.writeByte(LOG_UPDATE_APP_DETAILS);
+            out.writeInt(app.getAppId());
+            OperationLog.writeAppDetails(out, app);
+        });
+    }
+
+    /**
+     * This method applies the changes in the operation log to the apps just loaded, without logging them again.
+     *
+     * @throws IOException if the log can't be read.
+     */
+    private void replayOperationLog() throws IOException {
+        if (operationLog == null) {
+            return;
+        }
+        OperationLog log = operationLog;
+        operationLog = null;
+        try {
+            log.replay(this::applyLoggedChange);
+        } finally {
+            operationLog = log;
+        }
+    }
+
+    private App readLoggedApp(DataInput in) throws IOException {
+        App app = OperationLog.readApp(in);
+        app.setDeveloper(developerInterner.intern(app.getDeveloper()));
+        return app;
+    }
+
+    private void applyLoggedChange(DataInput in) throws IOException {
+        byte kind = in.readByte();
+        switch (kind) {
+            case LOG_ADD_APP -> addApp(readLoggedApp(in));
+            case LOG_ADD_APP_WITH_ID -> {
+                int appId = in.readInt();
+                storeApp(readLoggedApp(in), appId);
+            }
+            case LOG_DELETE_APP -> deleteAppById(in.readInt());
+            case LOG_UPDATE_APP -> {
+                int index = getAppIndexById(in.readInt());
+                //the ratings in these older records were logged as they were added too, so only the details are used
+                applyLoggedUpdate(index, readLoggedApp(in));
+            }
+            case LOG_UPDATE_APP_DETAILS -> {
+                int index = getAppIndexById(in.readInt());
+                App details = OperationLog.readAppDetails(in);
+                details.setDeveloper(developerInterner.intern(details.getDeveloper()));
+                applyLoggedUpdate(index, details);
+            }
+            case LOG_ADD_RATING -> addRating(getAppIndexById(in.readInt()), OperationLog.readRating(in));
+            case LOG_SORT_APPS -> sortApps(AppSortKey.values()[in.readByte()], in.readBoolean());
+            default -> throw new IOException("Unknown logged change " + kind);
+        }
+    }
+
+    private void applyLoggedUpdate(int index, App app) {
+        if (app instanceof EducationApp educationApp) {
+            updateEducationApp(index, app.getDeveloper(), app.getAppName(), app.getAppSize(), app.getAppVersion(), app.getAppCost(), educationApp.getLevel());
+        } else if (app instanceof GameApp gameApp) {
+            updateGameApp(index, app.getDeveloper(), app.getAppName(), app.getAppSize(), app.getAppVersion(), app.getAppCost(), gameApp.isMultiplayer());
+        } else {
+            updateProductivityApp(index, app.getDeveloper(), app.getAppName(), app.getAppSize(), app.getAppVersion(), app.getAppCost());
+        }
+    }
+
+    /**
+     * This method sets the table loaded apps get their developers from. Sharing the table of the DeveloperAPI means a
+     * loaded app has the same Developer object as the DeveloperAPI, rather than an equal copy of it.
+     *
+     * @param developerInterner the table of canonical developers.
+     */
+    public void setDeveloperInterner(DeveloperInterner developerInterner) {
+        this.developerInterner = developerInterner;
+    }
+
+    public DeveloperInterner getDeveloperInterner() {
+        return developerInterner;
     }
 
     public String fileName() {
         return "apps.xml";
     }
 
+    public String snapshotFileName() {
+        return "apps.dat";
+    }
+
+    public String logFileName() {
+        return "apps.log";
+    }
+
+    public String segmentsDirectoryName() {
+        return "apps.segments";
+    }
+
 }
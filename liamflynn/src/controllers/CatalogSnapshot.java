@@ -0,0 +1,248 @@
+package controllers;
+
+import models.App;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * The CatalogSnapshot class holds the apps of an AppStoreAPI as they were at the end of one batch of changes.
+ * <p>
+ * A snapshot never changes once it is made. It holds its own copies of the apps, so a reader can go through it
+ * without a lock while the apps carry on changing, and never sees an app half way through an update.
+ * The copies are kept in chunks of CHUNK_SIZE. Each new snapshot only copies the apps that have changed since the one
+ * before, and the chunks holding them, and shares the rest. A changed app whose ratings haven't changed shares the
+ * ratings list of its earlier copy.
+ * The copies share the Developer and Rating objects of the apps, which the apps don't change themselves.
+ */
+public final class CatalogSnapshot {
+
+    static final int CHUNK_SIZE = 256;
+
+    static final CatalogSnapshot EMPTY = new CatalogSnapshot(0, 0, new App[0][], new App[0][], new int[0][]);
+
+    private final long version;
+    private final int size;
+
+    //the app at each index when the snapshot was made, its copy, and how many times it had been changed when copied
+    private final App[][] originals;
+    private final App[][] copies;
+    private final int[][] modificationCounts;
+
+    private CatalogSnapshot(long version, int size, App[][] originals, App[][] copies, int[][] modificationCounts) {
+        this.version = version;
+        this.size = size;
+        this.originals = originals;
+        this.copies = copies;
+        this.modificationCounts = modificationCounts;
+    }
+
+    /**
+     * This method makes the snapshot that follows this one, checking every app and copying only the ones that are
+     * new or have changed. It is used after apps have been removed or moved, e.g. by a delete, a sort or a load.
+     *
+     * @param apps the apps as they are now, in order.
+     * @return the next snapshot, or this one if none of the apps have changed.
+     */
+    CatalogSnapshot next(List<App> apps) {
+        Builder next = new Builder(apps.size());
+        //only needed when apps have moved
+        Map<App, Integer> previousIndexes = null;
+        for (int i = 0; i < apps.size(); i++) {
+            App app = apps.get(i);
+            int previous;
+            if (i < size && originalAt(i) == app) {
+                previous = i;
+            } else {
+                if (previousIndexes == null) {
+                    previousIndexes = indexesOfOriginals();
+                }
+                previous = previousIndexes.getOrDefault(app, -1);
+            }
+            next.put(i, app, previous);
+        }
+        return next.build();
+    }
+
+    /**
+     * This method makes the snapshot that follows this one when the apps have only been changed in place, or added
+     * after the last one, since this snapshot was made. Only the changed and added apps are looked at, so the cost
+     * depends on how many apps changed rather than on how many there are.
+     *
+     * @param apps           the apps as they are now, in order.
+     * @param changedIndexes the indexes of the apps changed in place, the apps after the end of this snapshot are added.
+     * @return the next snapshot, or this one if none of the apps have changed.
+     */
+    CatalogSnapshot next(List<App> apps, int[] changedIndexes) {
+        if (apps.size() < size) {
+            return next(apps);
+        }
+        if (apps.size() == size && changedIndexes.length == 0) {
+            return this;
+        }
+        Builder next = new Builder(apps.size());
+        for (int index : changedIndexes) {
+            if (index >= 0 && index < size) {
+                App app = apps.get(index);
+                next.put(index, app, (originalAt(index) == app) ? index : -1);
+            }
+        }
+        for (int index = size; index < apps.size(); index++) {
+            next.put(index, apps.get(index), -1);
+        }
+        return next.build();
+    }
+
+    /**
+     * The Builder class makes the next snapshot from this one. It starts out sharing every chunk of this snapshot,
+     * and only copies a chunk the first time an app in it is put.
+     */
+    private final class Builder {
+        private final int nextSize;
+        private final App[][] nextOriginals;
+        private final App[][] nextCopies;
+        private final int[][] nextModificationCounts;
+        private final boolean[] chunkCopied;
+        private boolean changed;
+
+        Builder(int nextSize) {
+            this.nextSize = nextSize;
+            int numberOfChunks = (nextSize + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            nextOriginals = Arrays.copyOf(originals, numberOfChunks);
+            nextCopies = Arrays.copyOf(copies, numberOfChunks);
+            nextModificationCounts = Arrays.copyOf(modificationCounts, numberOfChunks);
+            chunkCopied = new boolean[numberOfChunks];
+            changed = (nextSize != size);
+        }
+
+        /**
+         * This method puts an app at an index of the next snapshot, sharing its copy from this snapshot if it hasn't
+         * changed since.
+         *
+         * @param index    the index of the app in the next snapshot.
+         * @param app      the app.
+         * @param previous the index of the app in this snapshot, or -1 if it isn't in it.
+         */
+        void put(int index, App app, int previous) {
+            App earlierCopy = (previous == -1) ? null : copyAt(previous);
+            boolean unchanged = (previous != -1)
+                    && modificationCounts[previous / CHUNK_SIZE][previous % CHUNK_SIZE] == app.getModificationCount();
+            if (unchanged && previous == index) {
+                //the chunk of the next snapshot already holds the app and its copy
+                return;
+            }
+            int chunk = index / CHUNK_SIZE;
+            int slot = index % CHUNK_SIZE;
+            if (!chunkCopied[chunk]) {
+                if (chunk < originals.length) {
+                    nextOriginals[chunk] = originals[chunk].clone();
+                    nextCopies[chunk] = copies[chunk].clone();
+                    nextModificationCounts[chunk] = modificationCounts[chunk].clone();
+                } else {
+                    nextOriginals[chunk] = new App[CHUNK_SIZE];
+                    nextCopies[chunk] = new App[CHUNK_SIZE];
+                    nextModificationCounts[chunk] = new int[CHUNK_SIZE];
+                }
+                chunkCopied[chunk] = true;
+            }
+            nextOriginals[chunk][slot] = app;
+            nextCopies[chunk][slot] = unchanged ? earlierCopy : app.copy(app.getDeveloper(), earlierCopy);
+            nextModificationCounts[chunk][slot] = app.getModificationCount();
+            changed = true;
+        }
+
+        CatalogSnapshot build() {
+            return changed ? new CatalogSnapshot(version + 1, nextSize, nextOriginals, nextCopies, nextModificationCounts)
+                    : CatalogSnapshot.this;
+        }
+    }
+
+    private Map<App, Integer> indexesOfOriginals() {
+        Map<App, Integer> indexes = new IdentityHashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            indexes.put(originalAt(i), i);
+        }
+        return indexes;
+    }
+
+    private App originalAt(int index) {
+        return originals[index / CHUNK_SIZE][index % CHUNK_SIZE];
+    }
+
+    private App copyAt(int index) {
+        return copies[index / CHUNK_SIZE][index % CHUNK_SIZE];
+    }
+
+    /**
+     * This method returns the version of the snapshot, which goes up by one each time a changed snapshot is published.
+     *
+     * @return the version, 0 for the snapshot of an AppStoreAPI that has never held any apps.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * This method returns the copies of the apps, in the order the apps were in.
+     * The copies are shared with later snapshots, so they must not be changed.
+     *
+     * @return a read-only list of the copies.
+     */
+    public List<App> getApps() {
+        return new AbstractList<>() {
+            @Override
+            public App get(int index) {
+                return copyAt(Objects.checkIndex(index, size));
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    public int numberOfApps() {
+        return size;
+    }
+
+    /**
+     * This method lists all apps, in the same format as AppStoreAPI.listAllApps.
+     *
+     * @return an AppReport whose text either tells the user no apps have been stored or lists all stored apps.
+     */
+    public AppReport reportAllApps() {
+        return buildReport("Apps: ", "No apps added yet", app -> true, false);
+    }
+
+    /**
+     * This method lists all recommended apps, in the same format as AppStoreAPI.listAllRecommendedApps.
+     *
+     * @return an AppReport whose text either tells the user no recommended apps have been stored or lists their summaries.
+     */
+    public AppReport reportAllRecommendedApps() {
+        return buildReport("Recommended Apps: \n", "No recommended apps", App::isRecommendedApp, true);
+    }
+
+    private AppReport buildReport(String heading, String noAppsMessage, Predicate<App> filter, boolean summary) {
+        StringBuilder list = new StringBuilder(heading);
+        int[] indexes = new int[size];
+        int count = 0;
+        for (int index = 0; index < size; index++) {
+            App app = copyAt(index);
+            if (filter.test(app)) {
+                list.append("Index: ").append(index).append(" ").append(summary ? app.appSummary() : app.toString()).append("\n");
+                indexes[count++] = index;
+            }
+        }
+        if (count == 0) {
+            return new AppReport(noAppsMessage, new int[0]);
+        }
+        return new AppReport(list.toString(), Arrays.copyOf(indexes, count));
+    }
+}
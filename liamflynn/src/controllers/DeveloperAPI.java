@@ -1,21 +1,54 @@
 package controllers;
 
-import com.thoughtworks.xstream.XStream;
-import com.thoughtworks.xstream.io.xml.DomDriver;
 import models.*;
+import utils.AtomicFileWriter;
+import utils.BackgroundSaver;
+import utils.BinaryCatalog;
+import utils.CatalogXStream;
 import utils.ISerializer;
+import utils.OperationLog;
 import utils.Utilities;
+import utils.XmlCatalogReader;
 
+import java.io.BufferedReader;
+import java.io.DataInput;
+import java.io.File;
 import java.io.FileReader;
-import java.io.FileWriter;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class DeveloperAPI implements ISerializer {
+
+    //saveIfLogIsFull saves in full once the operation log holds this many changes
+    public static final int COMPACTION_THRESHOLD = 10_000;
+
+    //the kinds of change written to the operation log
+    private static final byte LOG_ADD_DEVELOPER = 1;
+    private static final byte LOG_REMOVE_DEVELOPER = 2;
+    private static final byte LOG_UPDATE_WEBSITE = 3;
+
     private List<Developer> developers = new ArrayList<>();
 
+    //the canonical Developer object for each name, shared with the AppStoreAPI so loaded apps use these objects
+    private final DeveloperInterner developerInterner = new DeveloperInterner();
+
+    //the changes made since the xml file was last saved, or null if changes are not logged
+    private OperationLog operationLog;
+
+    //whether the developers are the xml file plus the logged changes, as they are after load or save.
+    //changes are only logged while they are, as the log is replayed onto the file
+    private boolean logMatchesFile = false;
+
+    //how many changes have been made, so a background save can tell whether the developers changed after it copied them
+    private long changesMade = 0;
+
+    //writes the xml file for saveInBackground
+    private final BackgroundSaver backgroundSaver = new BackgroundSaver("developers-saver");
+
     //---------------------
     // Create methods
     //---------------------
@@ -23,7 +56,13 @@ public class DeveloperAPI implements ISerializer {
         if (isValidDeveloper(developer.getDeveloperName())){
             return false;
         }
-        return developers.add(developer);
+        developers.add(developer);
+        developerInterner.register(developer);
+        log(out -> {
+            out.writeByte(LOG_ADD_DEVELOPER);
+            OperationLog.writeDeveloper(out, developer);
+        });
+        return true;
     }
 
     //---------------------
@@ -67,6 +106,11 @@ public class DeveloperAPI implements ISerializer {
         if (isValidDeveloper(developerName)){
             Developer developerToUpdate = getDeveloperByName(developerName);
             developerToUpdate.setDeveloperWebsite(developerWebsite);
+            log(out -> {
+                out.writeByte(LOG_UPDATE_WEBSITE);
+                BinaryCatalog.writeString(out, developerName);
+                BinaryCatalog.writeString(out, developerWebsite);
+            });
             return true;
         }
         return false;
@@ -78,7 +122,13 @@ public class DeveloperAPI implements ISerializer {
     public Developer removeDeveloper(String developerName){
         int index = retrieveDeveloperIndex(developerName);
         if (index != -1) {
-            return developers.remove(index);
+            log(out -> {
+                out.writeByte(LOG_REMOVE_DEVELOPER);
+                BinaryCatalog.writeString(out, developerName);
+            });
+            Developer removedDeveloper = developers.remove(index);
+            developerInterner.remove(removedDeveloper);
+            return removedDeveloper;
         }
         return null;
     }
@@ -111,47 +161,182 @@ public class DeveloperAPI implements ISerializer {
         return developers;
     }
 
+    public DeveloperInterner getDeveloperInterner() {
+        return developerInterner;
+    }
+
     //---------------------
     // Persistence Methods
     //---------------------
     /**
-     * The load method uses the XStream component to read all the objects from the xml
-     * file stored on the hard disk.  The read objects are loaded into the associated ArrayList
+     * The load method reads all the developers from the xml file stored on the hard disk one at a time,
+     * with a streaming parser rather than building the whole document in memory first.
+     * The read objects are loaded into the associated ArrayList, and replace the developers of the last load
+     * as the canonical ones in the DeveloperInterner.
      *
      * @throws Exception An exception is thrown if an error occurred during the load e.g. a missing file.
      */
-    @SuppressWarnings("unchecked")
     public void load() throws Exception {
-        //list of classes that you wish to include in the serialisation, separated by a comma
-        Class<?>[] classes = new Class[]{Developer.class};
-
-        //setting up the xstream object with default security and the above classes
-        XStream xstream = new XStream(new DomDriver());
-        XStream.setupDefaultSecurity(xstream);
-        xstream.allowTypes(classes);
-
-        //doing the actual serialisation to an XML file
-        ObjectInputStream in = xstream.createObjectInputStream(new FileReader(fileName()));
-        developers = (List<Developer>) in.readObject();
-        in.close();
+        List<Developer> loadedDevelopers = new ArrayList<>();
+        try (Reader in = new BufferedReader(new FileReader(fileName()))) {
+            XmlCatalogReader.readDevelopers(in, loadedDevelopers::add);
+        }
+        developerInterner.clear();
+        for (Developer developer : loadedDevelopers) {
+            developerInterner.register(developer);
+        }
+        developers = loadedDevelopers;
+        synchronized (this) {
+            changesMade++;
+            logMatchesFile = false;
+        }
+        replayOperationLog();
+        synchronized (this) {
+            logMatchesFile = true;
+        }
     }
 
     /**
-     * The save method uses the XStream component to write all the objects in the ArrayList
-     * to the xml file stored on the hard disk.
+     * The save method uses the shared XStream in CatalogXStream to write all the objects in the ArrayList
+     * to the xml file stored on the hard disk. The file is replaced atomically, so a failed save leaves the last
+     * saved file in place. Everything in the operation log is then part of the file, so the log is emptied.
      *
      * @throws Exception An exception is thrown if an error occurred during the save e.g. drive is full.
      */
     public void save() throws Exception {
-        XStream xstream = new XStream(new DomDriver());
-        ObjectOutputStream out = xstream.createObjectOutputStream(new FileWriter(fileName()));
-        out.writeObject(developers);
-        out.close();
+        long logMark = (operationLog == null) ? 0 : operationLog.mark();
+        long changesWhenWritten = changesMade();
+        writeXml(developers);
+        if (operationLog != null) {
+            operationLog.discardUpTo(logMark);
+        }
+        fileWritten(changesWhenWritten);
+    }
+
+    /**
+     * The saveInBackground method copies the developers and writes the copies to the xml file on a background thread,
+     * so the developers can carry on changing while the file is written. Changes are only logged on top of the file
+     * once it has been written.
+     *
+     * @return a future that completes when the file has been written.
+     */
+    public CompletableFuture<Void> saveInBackground() {
+        List<Developer> snapshot = new ArrayList<>(developers.size());
+        for (Developer developer : developers) {
+            snapshot.add(new Developer(developer.getDeveloperName(), developer.getDeveloperWebsite()));
+        }
+        long changesWhenCopied = changesMade();
+        OperationLog log = operationLog;
+        long logMark;
+        try {
+            logMark = (log == null) ? 0 : log.mark();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return backgroundSaver.submit(() -> {
+            writeXml(snapshot);
+            if (log != null) {
+                log.discardUpTo(logMark);
+            }
+            fileWritten(changesWhenCopied);
+        });
+    }
+
+    private synchronized long changesMade() {
+        return changesMade;
+    }
+
+    /**
+     * This method is called once the xml file has been written, and starts logging changes on top of it.
+     * It is synchronized with log, as a background save calls it from its own thread. If the developers have changed
+     * since they were copied for the file, and the changes weren't logged because the log didn't match the last file,
+     * the file and log don't add up to the developers, so logging waits for the next save.
+     *
+     * @param changesWhenCopied the number of changes made when the developers were copied for the file.
+     */
+    private synchronized void fileWritten(long changesWhenCopied) {
+        if (changesMade == changesWhenCopied) {
+            logMatchesFile = true;
+        }
+    }
+
+    private void writeXml(List<Developer> developersToWrite) throws IOException {
+        AtomicFileWriter.write(new File(fileName()), out -> CatalogXStream.write(out, developersToWrite));
     }
 
     public String fileName(){
         return "developers.xml";
     }
 
+    public String logFileName(){
+        return "developers.log";
+    }
+
+    //---------------------
+    // Operation log methods
+    //---------------------
+    /**
+     * The openOperationLog method starts writing every change to the operation log file, so a change is saved
+     * without writing every developer. The log holds the changes made since the xml file was last saved,
+     * and load replays it onto the file. Changes are only logged once the developers have been loaded from the xml
+     * file or saved to it.
+     *
+     * @param batchSize how many changes are written before they are forced to disk, 1 forces every change.
+     * @throws IOException if the log file can't be opened.
+     */
+    public void openOperationLog(int batchSize) throws IOException {
+        closeOperationLog();
+        operationLog = new OperationLog(new File(logFileName()), batchSize);
+    }
+
+    public void closeOperationLog() throws IOException {
+        if (operationLog != null) {
+            operationLog.close();
+            operationLog = null;
+        }
+    }
+
+    public boolean saveIfLogIsFull() throws Exception {
+        if (operationLog != null && operationLog.numberOfRecords() >= COMPACTION_THRESHOLD) {
+            save();
+            return true;
+        }
+        return false;
+    }
+
+    private synchronized void log(OperationLog.Entry entry) {
+        changesMade++;
+        if (operationLog != null && logMatchesFile) {
+            try {
+                operationLog.append(entry);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void replayOperationLog() throws IOException {
+        if (operationLog == null) {
+            return;
+        }
+        OperationLog log = operationLog;
+        operationLog = null;
+        try {
+            log.replay(this::applyLoggedChange);
+        } finally {
+            operationLog = log;
+        }
+    }
+
+    private void applyLoggedChange(DataInput in) throws IOException {
+        byte kind = in.readByte();
+        switch (kind) {
+            case LOG_ADD_DEVELOPER -> addDeveloper(OperationLog.readDeveloper(in));
+            case LOG_REMOVE_DEVELOPER -> removeDeveloper(BinaryCatalog.readString(in));
+            case LOG_UPDATE_WEBSITE -> updateDeveloperWebsite(BinaryCatalog.readString(in), BinaryCatalog.readString(in));
+            default -> throw new IOException("Unknown logged change " + kind);
+        }
+    }
+
 
 }
\ No newline at end of file
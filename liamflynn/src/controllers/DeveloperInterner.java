@@ -0,0 +1,81 @@
+package controllers;
+
+import models.Developer;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The DeveloperInterner class holds one canonical Developer object for each developer name, so loaded apps share
+ * the developer objects of the DeveloperAPI instead of each having a copy.
+ * <p>
+ * The table is looked up by name case-insensitively, the same as DeveloperAPI does, but a developer is only swapped
+ * for the canonical one when the two are equal. A loaded app whose developer has, say, a different website keeps
+ * its own developer. The table is thread-safe, so apps can be loaded on several threads at once.
+ */
+public class DeveloperInterner {
+
+    private final Map<String, Developer> developersByName = new ConcurrentHashMap<>();
+
+    /**
+     * This method returns the canonical developer equal to this one, making this developer the canonical one if
+     * there isn't one with its name yet.
+     *
+     * @param developer the developer that was loaded.
+     * @return the canonical developer, which can be compared with ==, or this developer if the canonical one with its
+     * name isn't equal to it. Null, and developers without a name, are returned as they are.
+     */
+    public Developer intern(Developer developer) {
+        if (developer == null || developer.getDeveloperName() == null) {
+            return developer;
+        }
+        Developer canonical = developersByName.computeIfAbsent(key(developer.getDeveloperName()), name -> developer);
+        return canonical.equals(developer) ? canonical : developer;
+    }
+
+    /**
+     * This method makes a developer the canonical one for its name, replacing any developer only known from loaded apps.
+     *
+     * @param developer the developer being added to the DeveloperAPI.
+     */
+    public void register(Developer developer) {
+        if (developer != null && developer.getDeveloperName() != null) {
+            developersByName.put(key(developer.getDeveloperName()), developer);
+        }
+    }
+
+    /**
+     * This method removes a developer, if it is the canonical one for its name.
+     *
+     * @param developer the developer being removed.
+     */
+    public void remove(Developer developer) {
+        if (developer != null && developer.getDeveloperName() != null) {
+            //remove(key, value) would compare with equals, which an equal copy also passes
+            developersByName.computeIfPresent(key(developer.getDeveloperName()), (name, canonical) -> (canonical == developer) ? null : canonical);
+        }
+    }
+
+    /**
+     * This method returns the canonical developer with a name.
+     *
+     * @param developerName the name of the developer, in any case.
+     * @return the developer, or null if no developer of that name has been interned.
+     */
+    public Developer get(String developerName) {
+        return (developerName == null) ? null : developersByName.get(key(developerName));
+    }
+
+    public int size() {
+        return developersByName.size();
+    }
+
+    public void clear() {
+        developersByName.clear();
+    }
+
+    private static String key(String developerName) {
+        return developerName.toLowerCase(Locale.ROOT);
+    }
+}
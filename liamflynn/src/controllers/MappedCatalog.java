@@ -0,0 +1,388 @@
+package controllers;
+
+import models.App;
+import models.AppType;
+import models.Developer;
+import utils.BinaryCatalog;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The MappedCatalog class is a read-only view of a binary snapshot written by BinaryCatalog.
+ * <p>
+ * The snapshot file is memory-mapped rather than read, so opening it only reads the footer and the developer
+ * dictionary. Lookups by name, the type counts and the listings are answered from the mapped file, and an App object
+ * is only built when it is asked for or listed. Files larger than one mapping can hold are mapped in several regions.
+ * <p>
+ * Apps are numbered by their position in the snapshot, which is their index in AppStoreAPI when it was saved.
+ * <p>
+ * The offset of every app is in the footer, so the whole catalog can also be decoded in chunks on several threads
+ * with readAllApps. The mapped file is only read with absolute positions, so the threads don't share any state.
+ */
+public class MappedCatalog implements Closeable {
+
+    private static final int REGION_SHIFT = 30;
+    private static final long REGION_SIZE = 1L << REGION_SHIFT;
+
+    //readAllApps splits the apps into chunks of at most this many, each decoded as one fork-join task
+    public static final int APPS_PER_CHUNK = 4096;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] regions;
+
+    private final Developer[] developers;
+    private final int numberOfApps;
+    private final long appOffsetsOffset;
+    private final long stringOffsetsOffset;
+    private final int[] typeCounts = new int[3];
+    private final int nameTableCapacity;
+    private final long nameTableOffset;
+
+    /**
+     * Constructor for objects of class MappedCatalog, which maps the snapshot file for reading.
+     *
+     * @param file a snapshot written with version 2 or later of BinaryCatalog.
+     * @throws IOException if the file can't be mapped or is not a snapshot that can be read in place.
+     */
+    public MappedCatalog(File file) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            regions = new MappedByteBuffer[(int) ((size + REGION_SIZE - 1) >>> REGION_SHIFT)];
+            for (int r = 0; r < regions.length; r++) {
+                long start = (long) r << REGION_SHIFT;
+                regions[r] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(REGION_SIZE, size - start));
+            }
+
+            if (size < 16 || getInt(0) != BinaryCatalog.MAGIC) {
+                throw new IOException("Not an app snapshot");
+            }
+            int version = getInt(4);
+            if (version < 2 || version > BinaryCatalog.VERSION) {
+                throw new IOException("Snapshot version " + version + " can't be read in place");
+            }
+
+            DataInputStream data = inputAt(BinaryCatalog.DEVELOPERS_OFFSET);
+            developers = new Developer[data.readInt()];
+            for (int d = 0; d < developers.length; d++) {
+                developers[d] = new Developer(BinaryCatalog.readString(data), BinaryCatalog.readString(data));
+            }
+
+            long footer = getLong(size - 8);
+            numberOfApps = getInt(footer);
+            appOffsetsOffset = footer + 4;
+            long numberOfStringsOffset = appOffsetsOffset + 8L * numberOfApps;
+            stringOffsetsOffset = numberOfStringsOffset + 4;
+            long typeCountsOffset = stringOffsetsOffset + 8L * getInt(numberOfStringsOffset);
+            for (int t = 0; t < typeCounts.length; t++) {
+                typeCounts[t] = getInt(typeCountsOffset + 4L * t);
+            }
+            nameTableCapacity = getInt(typeCountsOffset + 4L * typeCounts.length);
+            nameTableOffset = typeCountsOffset + 4L * typeCounts.length + 4;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * This method opens the snapshot file that AppStoreAPI saves to.
+     *
+     * @param appStore the store whose snapshot file is opened.
+     * @return a MappedCatalog of that file.
+     * @throws IOException if the file can't be mapped.
+     */
+    public static MappedCatalog open(AppStoreAPI appStore) throws IOException {
+        return new MappedCatalog(Path.of(appStore.snapshotFileName()).toFile());
+    }
+
+    //---------------------
+    // Counting methods
+    //---------------------
+
+    /**
+     * This method returns the number of apps in the snapshot.
+     *
+     * @return the number of total apps
+     */
+    public int numberOfApps() {
+        return numberOfApps;
+    }
+
+    /**
+     * This method returns the number of apps of one type in the snapshot, which are counted when it is written.
+     *
+     * @param appType the type of app to count.
+     * @return the number of apps of that type
+     */
+    public int numberOfAppsOfType(AppType appType) {
+        return typeCounts[typeTag(appType)];
+    }
+
+    //---------------------
+    // Getters
+    //---------------------
+
+    /**
+     * This method checks if an index is valid for the apps in the snapshot.
+     *
+     * @param index the index to be checked.
+     * @return true if valid or false if not.
+     */
+    public boolean isValidIndex(int index) {
+        return (index >= 0) && (index < numberOfApps);
+    }
+
+    /**
+     * This method builds the app at an index of the snapshot.
+     *
+     * @param index the index of the app.
+     * @return the app, or null if the index is invalid.
+     */
+    public App getAppByIndex(int index) {
+        if (!isValidIndex(index)) {
+            return null;
+        }
+        try {
+            return BinaryCatalog.readApp(inputAt(appOffset(index)), number -> developers[number], this::stringAt);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * This method finds the first app with a name, using the hash table in the snapshot so only apps whose name has
+     * the same hash are compared, and only the app found is built.
+     *
+     * @param name the name of the app, which has to match exactly.
+     * @return the app, or null if there is no app of that name.
+     */
+    public App getAppByName(String name) {
+        int index = getAppIndex(name);
+        return (index == -1) ? null : getAppByIndex(index);
+    }
+
+    /**
+     * This method returns the index of the first app with a name.
+     *
+     * @param name the name of the app, which has to match exactly.
+     * @return the index of the app, or -1 if there is no app of that name.
+     */
+    public int getAppIndex(String name) {
+        if (nameTableCapacity == 0) {
+            return -1;
+        }
+        int mask = nameTableCapacity - 1;
+        int slot = BinaryCatalog.nameHash(name) & mask;
+        try {
+            for (int entry = getInt(nameTableOffset + 4L * slot); entry != 0; entry = getInt(nameTableOffset + 4L * slot)) {
+                int index = entry - 1;
+                //the name comes after the type tag, the id and the developer number
+                if (Objects.equals(name, BinaryCatalog.readString(inputAt(appOffset(index) + 9)))) {
+                    return index;
+                }
+                slot = (slot + 1) & mask;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return -1;
+    }
+
+    /**
+     * This method builds every app in the snapshot, decoding chunks of APPS_PER_CHUNK apps as separate tasks on a
+     * fork-join pool. Each task writes its apps to their own slots of one array, so the apps are in snapshot order
+     * without a merge step.
+     *
+     * @param pool the pool the chunks are decoded on, e.g. ForkJoinPool.commonPool().
+     * @return a modifiable list of the apps, in the order they were saved.
+     */
+    public List<App> readAllApps(ForkJoinPool pool) {
+        App[] loadedApps = new App[numberOfApps];
+        pool.invoke(new DecodeApps(loadedApps, 0, numberOfApps));
+        return new ArrayList<>(Arrays.asList(loadedApps));
+    }
+
+    /**
+     * This task decodes the apps from one index up to another, splitting the range in half until it is one chunk.
+     */
+    private class DecodeApps extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final App[] loadedApps;
+        private final int from;
+        private final int to;
+
+        DecodeApps(App[] loadedApps, int from, int to) {
+            this.loadedApps = loadedApps;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= APPS_PER_CHUNK) {
+                for (int i = from; i < to; i++) {
+                    loadedApps[i] = getAppByIndex(i);
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new DecodeApps(loadedApps, from, middle), new DecodeApps(loadedApps, middle, to));
+            }
+        }
+    }
+
+    //---------------------
+    // Listing methods
+    //---------------------
+
+    /**
+     * This method lists all apps in the snapshot, in the same format as AppStoreAPI.listAllApps.
+     *
+     * @return a String that either tells the user there are no apps or lists every app.
+     */
+    public String listAllApps() {
+        return list("Apps: ", "No apps added yet", null);
+    }
+
+    /**
+     * This method lists all apps of one type in the snapshot, in the same format as the listings of that type in AppStoreAPI.
+     * Apps of other types are skipped by their type tag without being built.
+     *
+     * @param appType the type of app to list.
+     * @return a String that either tells the user there are no apps of the type or lists them.
+     */
+    public String listAllAppsOfType(AppType appType) {
+        String typeName = switch (appType) {
+            case GAME -> "Game";
+            case EDUCATION -> "Education";
+            case PRODUCTIVITY -> "Productivity";
+        };
+        return list("List of every " + typeName + " App: \n", "No " + typeName + " apps", appType);
+    }
+
+    private String list(String heading, String noAppsMessage, AppType appType) {
+        if ((appType == null) ? numberOfApps == 0 : numberOfAppsOfType(appType) == 0) {
+            return noAppsMessage;
+        }
+        StringBuilder list = new StringBuilder(heading);
+        for (int i = 0; i < numberOfApps; i++) {
+            if (appType == null || getByte(appOffset(i)) == typeTag(appType)) {
+                list.append("Index: ").append(i).append(" ").append(getAppByIndex(i)).append("\n");
+            }
+        }
+        return list.toString();
+    }
+
+    /**
+     * This method releases the file. The mappings stay valid until they are garbage collected.
+     *
+     * @throws IOException if the file can't be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    //---------------------
+    // Reading the mapped file
+    //---------------------
+
+    private long appOffset(int index) {
+        return getLong(appOffsetsOffset + 8L * index);
+    }
+
+    private String stringAt(int number) {
+        try {
+            return BinaryCatalog.readString(inputAt(getLong(stringOffsetsOffset + 8L * number)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte typeTag(AppType appType) {
+        return switch (appType) {
+            case EDUCATION -> BinaryCatalog.EDUCATION_APP;
+            case GAME -> BinaryCatalog.GAME_APP;
+            case PRODUCTIVITY -> BinaryCatalog.PRODUCTIVITY_APP;
+        };
+    }
+
+    private byte getByte(long position) {
+        return regions[(int) (position >>> REGION_SHIFT)].get((int) (position & (REGION_SIZE - 1)));
+    }
+
+    private int getInt(long position) {
+        ByteBuffer region = regions[(int) (position >>> REGION_SHIFT)];
+        int offset = (int) (position & (REGION_SIZE - 1));
+        if (offset + 4 <= region.limit()) {
+            return region.getInt(offset);
+        }
+        //the value is split between two regions
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            value = (value << 8) | (getByte(position + i) & 0xFF);
+        }
+        return value;
+    }
+
+    private long getLong(long position) {
+        return ((long) getInt(position) << 32) | (getInt(position + 4) & 0xFFFFFFFFL);
+    }
+
+    private DataInputStream inputAt(long position) {
+        return new DataInputStream(new MappedInputStream(position));
+    }
+
+    /**
+     * This input stream reads the mapped file from a position, across regions, so records can be decoded with
+     * the same code BinaryCatalog uses for streams.
+     */
+    private class MappedInputStream extends InputStream {
+        private long position;
+
+        MappedInputStream(long position) {
+            this.position = position;
+        }
+
+        @Override
+        public int read() {
+            if ((position >>> REGION_SHIFT) >= regions.length
+                    || (position & (REGION_SIZE - 1)) >= regions[(int) (position >>> REGION_SHIFT)].limit()) {
+                return -1;
+            }
+            return getByte(position++) & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            int region = (int) (position >>> REGION_SHIFT);
+            if (region >= regions.length) {
+                return -1;
+            }
+            int offset = (int) (position & (REGION_SIZE - 1));
+            int available = regions[region].limit() - offset;
+            if (available <= 0) {
+                return -1;
+            }
+            int count = Math.min(len, available);
+            regions[region].get(offset, bytes, off, count);
+            position += count;
+            return count;
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package main;
+
+import controllers.AppStoreAPI;
+import controllers.DeveloperAPI;
+import models.*;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * The AppStoreServer class lets other programs use an AppStoreAPI and DeveloperAPI over a TCP socket on the
+ * loopback address, as an alternative to the Driver menu.
+ * <p>
+ * The protocol is line based. Each request is one line holding a command and its arguments separated by tabs,
+ * as names can contain spaces. Each response is either "OK n" followed by n lines, or one "ERROR message" line.
+ * The commands are:
+ * <ul>
+ *     <li>PING, answered with PONG,</li>
+ *     <li>COUNT, the number of apps,</li>
+ *     <li>GET_APP name, the summary of the app with the name,</li>
+ *     <li>LIST_ALL_APPS, LIST_RECOMMENDED_APPS and LIST_APPS_BY_NAME name, the same listings as the menu,</li>
+ *     <li>ADD_DEVELOPER name website,</li>
+ *     <li>ADD_APP type developer name size version cost, followed by the level of an Education app
+ *         or Y/N for whether a Game app is multiplayer,</li>
+ *     <li>RATE name stars rater comment,</li>
+ *     <li>QUIT, which closes the connection.</li>
+ * </ul>
+ * Each connection is served by its own thread from a cached pool, so a client waiting on its socket doesn't hold up
+ * the others. The AppStoreAPI's read-write lock lets requests that only read run at the same time.
+ * Ratings are handed to AppStoreAPI.submitRating, which doesn't wait on the lock, and are drained into the apps
+ * every DRAIN_INTERVAL_MILLIS.
+ * <p>
+ * Usage: AppStoreServer [port]. The saved apps and developers are loaded at start up and saved on shut down.
+ */
+public class AppStoreServer implements Closeable {
+
+    public static final int DEFAULT_PORT = 7070;
+
+    //how often ratings submitted by clients are added to their apps
+    public static final long DRAIN_INTERVAL_MILLIS = 100;
+
+    //room for thousands of clients connecting at once
+    private static final int BACKLOG = 4096;
+
+    private final AppStoreAPI appStoreAPI;
+    private final DeveloperAPI developerAPI;
+
+    private final ExecutorService connectionExecutor = Executors.newCachedThreadPool(daemonThreads("app-store-connection"));
+    private final ScheduledExecutorService ratingDrainer = Executors.newSingleThreadScheduledExecutor(daemonThreads("app-store-ratings"));
+    private final Set<Socket> openSockets = ConcurrentHashMap.newKeySet();
+    private ServerSocket serverSocket;
+
+    /**
+     * Constructor for objects of class AppStoreServer.
+     *
+     * @param appStoreAPI  the apps the server gives access to.
+     * @param developerAPI the developers apps are added with.
+     */
+    public AppStoreServer(AppStoreAPI appStoreAPI, DeveloperAPI developerAPI) {
+        this.appStoreAPI = appStoreAPI;
+        this.developerAPI = developerAPI;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        DeveloperAPI developerAPI = new DeveloperAPI();
+        AppStoreAPI appStoreAPI = new AppStoreAPI();
+        appStoreAPI.setDeveloperInterner(developerAPI.getDeveloperInterner());
+        //developers are loaded first, so the apps loaded after them are given the same Developer objects
+        if (new File(developerAPI.fileName()).exists()) {
+            developerAPI.load();
+        }
+        if (new File(appStoreAPI.fileName()).exists()) {
+            appStoreAPI.load();
+        }
+
+        AppStoreServer server = new AppStoreServer(appStoreAPI, developerAPI);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+                developerAPI.save();
+                appStoreAPI.save();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }));
+        System.out.println("App store listening on " + InetAddress.getLoopbackAddress().getHostAddress() + ":" + server.start(port));
+    }
+
+    /**
+     * This method starts accepting connections on the loopback address.
+     *
+     * @param port the port to listen on, or 0 for any free port.
+     * @return the port the server is listening on.
+     * @throws IOException if the port can't be listened on.
+     */
+    public int start(int port) throws IOException {
+        serverSocket = new ServerSocket(port, BACKLOG, InetAddress.getLoopbackAddress());
+        Thread acceptThread = new Thread(this::acceptConnections, "app-store-accept");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+        ratingDrainer.scheduleWithFixedDelay(this::drainRatings, DRAIN_INTERVAL_MILLIS, DRAIN_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * This method stops the server, closing every open connection, and adds any ratings still waiting to their apps.
+     */
+    @Override
+    public void close() throws IOException {
+        if (serverSocket != null) {
+            serverSocket.close();
+        }
+        for (Socket socket : openSockets) {
+            socket.close();
+        }
+        connectionExecutor.shutdownNow();
+        ratingDrainer.shutdownNow();
+        appStoreAPI.drainSubmittedRatings();
+    }
+
+    /**
+     * This method is run every DRAIN_INTERVAL_MILLIS to add the submitted ratings to their apps.
+     * A failed drain is reported and the next one is still run, as an exception escaping a scheduled task cancels
+     * every later run of it, and ratings would then never be added again.
+     */
+    private void drainRatings() {
+        try {
+            appStoreAPI.drainSubmittedRatings();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                openSockets.add(socket);
+                connectionExecutor.execute(() -> serve(socket));
+            } catch (RejectedExecutionException | SocketException e) {
+                //the server has been closed
+                return;
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * This method answers the requests on one connection until the client quits or disconnects.
+     * Responses are flushed once there are no more requests already waiting, so a client that sends several
+     * requests at once gets the answers in one write.
+     *
+     * @param socket the connection.
+     */
+    private void serve(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            String request;
+            while ((request = in.readLine()) != null && !request.equalsIgnoreCase("QUIT")) {
+                out.write(handle(request));
+                if (!in.ready()) {
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            //the client disconnected or the server was closed
+        } finally {
+            openSockets.remove(socket);
+        }
+    }
+
+    /**
+     * This method carries out one request and builds the response to it.
+     *
+     * @param request a command and its arguments, separated by tabs.
+     * @return "OK n" and n lines, or an "ERROR message" line, each ending in a new line.
+     */
+    public String handle(String request) {
+        String[] arguments = request.split("\t", -1);
+        try {
+            return switch (arguments[0].toUpperCase(Locale.ROOT)) {
+                case "PING" -> ok("PONG");
+                case "COUNT" -> ok(String.valueOf(appStoreAPI.numberOfApps()));
+                case "GET_APP" -> getApp(arguments);
+                case "LIST_ALL_APPS" -> ok(appStoreAPI.listAllApps());
+                case "LIST_RECOMMENDED_APPS" -> ok(appStoreAPI.listAllRecommendedApps());
+                case "LIST_APPS_BY_NAME" -> ok(appStoreAPI.listAllAppsByName(argument(arguments, 1)));
+                case "ADD_DEVELOPER" -> addDeveloper(arguments);
+                case "ADD_APP" -> addApp(arguments);
+                case "RATE" -> rate(arguments);
+                default -> error("Unknown command " + arguments[0]);
+            };
+        } catch (IllegalArgumentException e) {
+            return error(e.getMessage());
+        }
+    }
+
+    private String getApp(String[] arguments) {
+        App app = appStoreAPI.getAppByName(argument(arguments, 1));
+        return (app == null) ? error("No app named " + arguments[1]) : ok(app.appSummary());
+    }
+
+    private String addDeveloper(String[] arguments) {
+        Developer developer = new Developer(argument(arguments, 1), argument(arguments, 2));
+        //the DeveloperAPI isn't thread-safe, so connections take turns with it
+        synchronized (developerAPI) {
+            return developerAPI.addDeveloper(developer) ? ok("Added developer " + developer.getDeveloperName())
+                    : error("Developer " + developer.getDeveloperName() + " already exists");
+        }
+    }
+
+    private String addApp(String[] arguments) {
+        String appType = argument(arguments, 1);
+        Developer developer;
+        synchronized (developerAPI) {
+            developer = developerAPI.getDeveloperByName(argument(arguments, 2));
+        }
+        if (developer == null) {
+            return error("No developer named " + arguments[2]);
+        }
+        String appName = argument(arguments, 3);
+        double appSize = number(arguments, 4);
+        double appVersion = number(arguments, 5);
+        double appCost = number(arguments, 6);
+        App app;
+        if (appType.equalsIgnoreCase("Education")) {
+            app = new EducationApp(developer, appName, appSize, appVersion, appCost, (int) number(arguments, 7));
+        } else if (appType.equalsIgnoreCase("Game")) {
+            app = new GameApp(developer, appName, appSize, appVersion, appCost, argument(arguments, 7).equalsIgnoreCase("Y"));
+        } else if (appType.equalsIgnoreCase("Productivity")) {
+            app = new ProductivityApp(developer, appName, appSize, appVersion, appCost);
+        } else {
+            return error("Not a valid app type " + appType);
+        }
+        return appStoreAPI.addApp(app) ? ok("Added app " + appName + " with ID " + app.getAppId()) : error("App " + appName + " wasn't added");
+    }
+
+    private String rate(String[] arguments) {
+        App app = appStoreAPI.getAppByName(argument(arguments, 1));
+        if (app == null) {
+            return error("No app named " + arguments[1]);
+        }
+        Rating rating = new Rating((int) number(arguments, 2), argument(arguments, 3), argument(arguments, 4));
+        return appStoreAPI.submitRating(app.getAppId(), rating) ? ok("Rated " + app.getAppName()) : error("No app named " + arguments[1]);
+    }
+
+    private static String argument(String[] arguments, int index) {
+        if (index >= arguments.length) {
+            throw new IllegalArgumentException(arguments[0] + " needs more arguments");
+        }
+        return arguments[index];
+    }
+
+    private static double number(String[] arguments, int index) {
+        try {
+            return Double.parseDouble(argument(arguments, index));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a number " + arguments[index]);
+        }
+    }
+
+    private static String ok(String text) {
+        List<String> lines = text.lines().toList();
+        StringBuilder response = new StringBuilder("OK ").append(lines.size()).append('\n');
+        for (String line : lines) {
+            response.append(line).append('\n');
+        }
+        return response.toString();
+    }
+
+    private static String error(String message) {
+        return "ERROR " + message.replace('\n', ' ') + "\n";
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -1,9 +1,15 @@
 package main;
 
+import controllers.AppSortKey;
 import controllers.AppStoreAPI;
 import controllers.DeveloperAPI;
+import controllers.MappedCatalog;
 import models.*;
 import utils.ScannerInput;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
 import static utils.Utilities.YNtoBoolean;
 
 /**
@@ -22,6 +28,10 @@ import static utils.Utilities.YNtoBoolean;
  *  -Reports Menu: Allows the user to view Overviews of all the Apps and Developers
  *      added to the program (As the Apps assigned toString)
  *
+ *  -Read-only Menu: Started with the --read-only argument instead of the Main Menu. It memory-maps the snapshot
+ *      saved with "Save snapshot" and answers counts, listings and name lookups from it, building only the apps
+ *      it shows, so a large catalog can be browsed straight away without loading it.
+ *
  * @author Liam FLynn
  * @version 1.0
  */
@@ -30,11 +40,24 @@ public class Driver {
     private final DeveloperAPI developerAPI = new DeveloperAPI();
     private final AppStoreAPI appStoreAPI = new AppStoreAPI();
 
+    //the last save started from the menu, which is written in the background
+    private CompletableFuture<Void> pendingSave = CompletableFuture.completedFuture(null);
+
+    public Driver() {
+        //loaded apps share the developers of the DeveloperAPI
+        appStoreAPI.setDeveloperInterner(developerAPI.getDeveloperInterner());
+    }
+
     public static void main(String[] args) {
-        new Driver().start();
+        if (args.length > 0 && args[0].equalsIgnoreCase("--read-only")) {
+            new Driver().startReadOnly();
+        } else {
+            new Driver().start();
+        }
     }
 
     public void start() {
+        openOperationLogs();
         //loadAllData();
         runMainMenu();
     }
@@ -55,6 +78,7 @@ public class Driver {
                 |----------------------------------|
                 |  20) Save all                    |
                 |  21) Load all                    |
+                |  22) Save snapshot               |
                 |----------------------------------|
                 |  0) Exit                         |
                  ----------------------------------""");
@@ -75,8 +99,10 @@ public class Driver {
                 case 8 -> simulateRatings();
                 case 20 -> saveAllData();
                 case 21 -> loadAllData();
+                case 22 -> saveSnapshot();
                 default -> System.out.println("Invalid option entered: " + option);
             }
+            saveIfLogsAreFull();
             ScannerInput.validNextLine("\n Press the enter key to continue");
             option = mainMenu();
         }
@@ -85,6 +111,8 @@ public class Driver {
 
     private void exitApp() {
         //saveAllData();
+        waitForPendingSave();
+        closeOperationLogs();
         System.out.println("Exiting....");
         System.exit(0);
     }
@@ -483,8 +511,8 @@ public class Driver {
             appStoreAPI.listAllApps();
             int choice = ScannerInput.validNextInt("Press 1 to sort this list alphabetically , press 0 to exit):");
             if (choice == 1) {
-                appStoreAPI.sortAppsByNameAscending();
-                System.out.println("New list of apps: \n" + appStoreAPI.listAllApps());
+                //the sorted view leaves the apps where they are, so the indexes shown stay valid
+                System.out.println("New list of apps: \n" + appStoreAPI.listAppsSortedBy(AppSortKey.NAME, true));
             }
         }
         System.out.println("No apps registered yet.");
@@ -573,30 +601,154 @@ public class Driver {
     //  Persistence Menu Items
     //--------------------------------------------------
 
+    /**
+     * The apps and developers are copied straight away and written in the background, so the menu can be used
+     * while a large catalog is saved. Any error is printed when the save finishes.
+     */
     private void saveAllData() {
+        System.out.println("Saving in the background...");
+        pendingSave = CompletableFuture.allOf(appStoreAPI.saveInBackground(), developerAPI.saveInBackground())
+                .whenComplete((done, e) -> {
+                    if (e != null) {
+                        e.printStackTrace();
+                    }
+                });
+    }
+
+    private void waitForPendingSave() {
         try {
-            appStoreAPI.save();
+            pendingSave.join();
+        } catch (Exception e) {
+            //the error was printed when the save finished
+        }
+    }
+
+    /**
+     * Every change is written to the operation logs as it is made, so changes aren't lost if the program stops
+     * before they are saved.
+     */
+    private void openOperationLogs() {
+        try {
+            appStoreAPI.openOperationLog(1);
+            developerAPI.openOperationLog(1);
         } catch (Exception e) {
             e.printStackTrace();
         }
+    }
+
+    private void closeOperationLogs() {
         try {
-            developerAPI.save();
+            appStoreAPI.closeOperationLog();
+            developerAPI.closeOperationLog();
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
-    private void loadAllData() {
+    private void saveIfLogsAreFull() {
         try {
-            appStoreAPI.load();
+            appStoreAPI.saveIfLogIsFull();
+            developerAPI.saveIfLogIsFull();
         } catch (Exception e) {
             e.printStackTrace();
         }
+    }
+
+    /**
+     * The snapshot is the file the read-only menu maps, so it is saved here rather than on every save.
+     */
+    private void saveSnapshot() {
+        try {
+            appStoreAPI.saveSnapshot();
+            System.out.println("Snapshot saved to " + appStoreAPI.snapshotFileName());
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void loadAllData() {
+        waitForPendingSave();
+        //developers are loaded first, so the apps loaded after them are given the same Developer objects
         try {
             developerAPI.load();
         } catch (Exception e) {
             e.printStackTrace();
         }
+        try {
+            appStoreAPI.load();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    //--------------------------------------------------
+    //  Read-only Menu Items
+    //--------------------------------------------------
+
+    /**
+     * This method maps the saved snapshot and runs the read-only menu on it, without loading the apps or developers.
+     */
+    public void startReadOnly() {
+        try (MappedCatalog catalog = MappedCatalog.open(appStoreAPI)) {
+            runReadOnlyMenu(catalog);
+        } catch (IOException e) {
+            System.out.println("The snapshot " + appStoreAPI.snapshotFileName() + " can't be opened, it is saved with option 22 of the main menu (" + e + ")");
+        }
+        System.out.println("Exiting....");
+    }
+
+    private int readOnlyMenu() {
+        System.out.println("""
+                 ---------Read-only Menu---------
+                |   1) Count apps                |
+                |   2) List all apps             |
+                |   3) List apps of a type       |
+                |   4) Find an app by name       |
+                |   0) Exit                      |
+                 --------------------------------""");
+        return ScannerInput.validNextInt("==>> ");
+    }
+
+    private void runReadOnlyMenu(MappedCatalog catalog) {
+        int option = readOnlyMenu();
+        while (option != 0) {
+            switch (option) {
+                case 1 -> countMappedApps(catalog);
+                case 2 -> System.out.println(catalog.listAllApps());
+                case 3 -> listMappedAppsOfType(catalog);
+                case 4 -> findMappedAppByName(catalog);
+                default -> System.out.println("Invalid option entered: " + option);
+            }
+            ScannerInput.validNextLine("\n Press the enter key to continue");
+            option = readOnlyMenu();
+        }
+    }
+
+    private void countMappedApps(MappedCatalog catalog) {
+        System.out.println(catalog.numberOfApps() + " App(s): "
+                + catalog.numberOfAppsOfType(AppType.GAME) + " Game, "
+                + catalog.numberOfAppsOfType(AppType.EDUCATION) + " Education, "
+                + catalog.numberOfAppsOfType(AppType.PRODUCTIVITY) + " Productivity");
+    }
+
+    private void listMappedAppsOfType(MappedCatalog catalog) {
+        int option = ScannerInput.validNextInt("""
+                Which type of app:
+                  1) Game
+                  2) Education
+                  3) Productivity
+                ==>> """);
+        switch (option) {
+            case 1 -> System.out.println(catalog.listAllAppsOfType(AppType.GAME));
+            case 2 -> System.out.println(catalog.listAllAppsOfType(AppType.EDUCATION));
+            case 3 -> System.out.println(catalog.listAllAppsOfType(AppType.PRODUCTIVITY));
+            default -> System.out.println("Invalid option");
+        }
+    }
+
+    private void findMappedAppByName(MappedCatalog catalog) {
+        App app = catalog.getAppByName(ScannerInput.validNextLine("Enter the name of the app you're looking for:"));
+        System.out.println((app == null) ? "No app with that name in the snapshot." : app.appSummary());
     }
 
 }
\ No newline at end of file
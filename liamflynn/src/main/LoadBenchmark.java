@@ -0,0 +1,131 @@
+package main;
+
+import com.thoughtworks.xstream.XStream;
+import controllers.MappedCatalog;
+import models.*;
+import utils.BinaryCatalog;
+import utils.CatalogXStream;
+import utils.XmlCatalogReader;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The LoadBenchmark class times the ways a catalog can be loaded, on a generated catalog of the same shape as the
+ * Driver builds:
+ * <ul>
+ *     <li>the XStream object stream the apps were originally loaded with,</li>
+ *     <li>the streaming xml reader load() now uses,</li>
+ *     <li>the binary snapshot read on one thread, as loadSnapshot does,</li>
+ *     <li>the binary snapshot mapped and decoded in chunks on the fork-join pool, as loadSnapshotInParallel does.</li>
+ * </ul>
+ * Usage: LoadBenchmark [number of apps] [rounds]. Each way is run once to warm up, then timed over the rounds.
+ */
+public class LoadBenchmark {
+
+    @FunctionalInterface
+    private interface Loader {
+        List<App> load() throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int numberOfApps = (args.length > 0) ? Integer.parseInt(args[0]) : 200_000;
+        int rounds = (args.length > 1) ? Integer.parseInt(args[1]) : 5;
+
+        File directory = Files.createTempDirectory("load-benchmark").toFile();
+        File xmlFile = new File(directory, "apps.xml");
+        File snapshotFile = new File(directory, "apps.dat");
+        List<App> apps = generateApps(numberOfApps);
+
+        XStream xstream = CatalogXStream.get();
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(xmlFile))) {
+            CatalogXStream.write(out, apps);
+        }
+        try (OutputStream out = new FileOutputStream(snapshotFile)) {
+            BinaryCatalog.write(out, apps);
+        }
+        System.out.printf("%,d apps: xml %,d bytes, snapshot %,d bytes, %d cores%n",
+                numberOfApps, xmlFile.length(), snapshotFile.length(), Runtime.getRuntime().availableProcessors());
+
+        time("XStream object stream", rounds, numberOfApps, () -> {
+            try (ObjectInputStream in = xstream.createObjectInputStream(new BufferedReader(new FileReader(xmlFile)))) {
+                @SuppressWarnings("unchecked")
+                List<App> loaded = (List<App>) in.readObject();
+                return loaded;
+            }
+        });
+        time("Streaming xml reader", rounds, numberOfApps, () -> {
+            List<App> loaded = new ArrayList<>();
+            try (Reader in = new BufferedReader(new FileReader(xmlFile))) {
+                XmlCatalogReader.readApps(in, loaded::add);
+            }
+            return loaded;
+        });
+        time("Binary snapshot, one thread", rounds, numberOfApps, () -> {
+            List<App> loaded = new ArrayList<>();
+            try (InputStream in = new FileInputStream(snapshotFile)) {
+                BinaryCatalog.read(in, loaded::add);
+            }
+            return loaded;
+        });
+        time("Binary snapshot, fork-join", rounds, numberOfApps, () -> {
+            try (MappedCatalog catalog = new MappedCatalog(snapshotFile)) {
+                return catalog.readAllApps(ForkJoinPool.commonPool());
+            }
+        });
+
+        xmlFile.delete();
+        snapshotFile.delete();
+        directory.delete();
+    }
+
+    private static void time(String name, int rounds, int expectedApps, Loader loader) throws Exception {
+        check(name, loader.load(), expectedApps);
+        long best = Long.MAX_VALUE;
+        long total = 0;
+        for (int round = 0; round < rounds; round++) {
+            long start = System.nanoTime();
+            List<App> loaded = loader.load();
+            long elapsed = System.nanoTime() - start;
+            check(name, loaded, expectedApps);
+            best = Math.min(best, elapsed);
+            total += elapsed;
+        }
+        System.out.printf("%-30s best %,8d ms   mean %,8d ms%n", name, best / 1_000_000, total / rounds / 1_000_000);
+    }
+
+    private static void check(String name, List<App> loaded, int expectedApps) {
+        if (loaded.size() != expectedApps) {
+            throw new IllegalStateException(name + " loaded " + loaded.size() + " apps, expected " + expectedApps);
+        }
+    }
+
+    private static List<App> generateApps(int numberOfApps) {
+        Random random = new Random(42);
+        List<Developer> developers = new ArrayList<>();
+        for (int d = 0; d < 100; d++) {
+            developers.add(new Developer("Developer " + d, "www.developer" + d + ".com"));
+        }
+        String[] comments = {"Great App", "Loved the UX", "Not bad", "Needs work", "Excellent"};
+        List<App> apps = new ArrayList<>(numberOfApps);
+        for (int i = 0; i < numberOfApps; i++) {
+            Developer developer = developers.get(random.nextInt(developers.size()));
+            App app = switch (i % 3) {
+                case 0 -> new GameApp(developer, "Game " + i, 1 + random.nextInt(500), 1.0, random.nextInt(10), random.nextBoolean());
+                case 1 -> new EducationApp(developer, "Education " + i, 1 + random.nextInt(500), 1.0, random.nextInt(10), 1 + random.nextInt(10));
+                default -> new ProductivityApp(developer, "Productivity " + i, 1 + random.nextInt(500), 1.0, random.nextInt(10));
+            };
+            int numberOfRatings = random.nextInt(4);
+            for (int r = 0; r < numberOfRatings; r++) {
+                app.addRating(new Rating(1 + random.nextInt(5), "Rater " + random.nextInt(1000), comments[random.nextInt(comments.length)]));
+            }
+            app.setAppId(i + 1);
+            apps.add(app);
+        }
+        return apps;
+    }
+}
@@ -0,0 +1,157 @@
+package main;
+
+import controllers.AppStoreAPI;
+import controllers.DeveloperAPI;
+import models.*;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.*;
+
+/**
+ * The ServerLoadGenerator class measures the throughput and latency of an AppStoreServer on the loopback address.
+ * It starts a server holding a generated catalog, then connects many clients at once. Each client sends its requests
+ * one after another and times each one from sending it to reading the whole response.
+ * The requests are a mix of reads and ratings:
+ * <ul>
+ *     <li>70% GET_APP of a random app,</li>
+ *     <li>20% RATE of a random app,</li>
+ *     <li>10% COUNT.</li>
+ * </ul>
+ * Usage: ServerLoadGenerator [clients] [requests per client] [number of apps]. The throughput, and the median,
+ * 99th percentile and worst latencies, are printed at the end.
+ */
+public class ServerLoadGenerator {
+
+    public static void main(String[] args) throws Exception {
+        int clients = (args.length > 0) ? Integer.parseInt(args[0]) : 1000;
+        int requestsPerClient = (args.length > 1) ? Integer.parseInt(args[1]) : 200;
+        int numberOfApps = (args.length > 2) ? Integer.parseInt(args[2]) : 10_000;
+
+        AppStoreAPI appStoreAPI = new AppStoreAPI();
+        DeveloperAPI developerAPI = new DeveloperAPI();
+        appStoreAPI.setDeveloperInterner(developerAPI.getDeveloperInterner());
+        generateCatalog(appStoreAPI, developerAPI, numberOfApps);
+
+        try (AppStoreServer server = new AppStoreServer(appStoreAPI, developerAPI)) {
+            int port = server.start(0);
+            System.out.printf("%,d clients sending %,d requests each to a catalog of %,d apps%n", clients, requestsPerClient, numberOfApps);
+
+            ExecutorService clientExecutor = Executors.newFixedThreadPool(clients);
+            CountDownLatch connected = new CountDownLatch(clients);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<long[]>> results = new ArrayList<>(clients);
+            for (int c = 0; c < clients; c++) {
+                long seed = c;
+                results.add(clientExecutor.submit(() -> runClient(port, requestsPerClient, numberOfApps, seed, connected, start)));
+            }
+            connected.await();
+            long startTime = System.nanoTime();
+            start.countDown();
+
+            long[] latencies = new long[clients * requestsPerClient];
+            int next = 0;
+            for (Future<long[]> result : results) {
+                long[] clientLatencies = result.get();
+                System.arraycopy(clientLatencies, 0, latencies, next, clientLatencies.length);
+                next += clientLatencies.length;
+            }
+            long elapsed = System.nanoTime() - startTime;
+            clientExecutor.shutdown();
+
+            Arrays.sort(latencies);
+            System.out.printf("%,d requests in %,d ms, %,.0f requests a second%n",
+                    latencies.length, elapsed / 1_000_000, latencies.length / (elapsed / 1e9));
+            System.out.printf("latency p50 %,d us   p99 %,d us   max %,d us%n",
+                    percentile(latencies, 0.50) / 1000, percentile(latencies, 0.99) / 1000, latencies[latencies.length - 1] / 1000);
+        }
+        System.out.printf("%,d ratings added%n", totalRatings(appStoreAPI));
+    }
+
+    /**
+     * This method runs one client: it connects, waits for every other client to connect, then sends its requests
+     * and times them.
+     *
+     * @return the latency of each request, in nanoseconds.
+     */
+    private static long[] runClient(int port, int requests, int numberOfApps, long seed,
+                                    CountDownLatch connected, CountDownLatch start) throws Exception {
+        SplittableRandom random = new SplittableRandom(seed);
+        long[] latencies = new long[requests];
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            socket.setTcpNoDelay(true);
+            connected.countDown();
+            start.await();
+            for (int r = 0; r < requests; r++) {
+                String appName = "App " + random.nextInt(numberOfApps);
+                int kind = random.nextInt(10);
+                String request;
+                if (kind < 7) {
+                    request = "GET_APP\t" + appName;
+                } else if (kind < 9) {
+                    request = "RATE\t" + appName + "\t" + (1 + random.nextInt(5)) + "\tLoad tester\tGenerated";
+                } else {
+                    request = "COUNT";
+                }
+                long sent = System.nanoTime();
+                out.write(request + "\n");
+                out.flush();
+                readResponse(in, request);
+                latencies[r] = System.nanoTime() - sent;
+            }
+            out.write("QUIT\n");
+            out.flush();
+        }
+        return latencies;
+    }
+
+    private static void readResponse(BufferedReader in, String request) throws IOException {
+        String status = in.readLine();
+        if (status == null || !status.startsWith("OK ")) {
+            throw new IOException(request + " failed: " + status);
+        }
+        int lines = Integer.parseInt(status.substring(3));
+        for (int i = 0; i < lines; i++) {
+            in.readLine();
+        }
+    }
+
+    private static long percentile(long[] sortedLatencies, double fraction) {
+        int index = (int) Math.ceil(fraction * sortedLatencies.length) - 1;
+        return sortedLatencies[Math.max(0, index)];
+    }
+
+    private static void generateCatalog(AppStoreAPI appStoreAPI, DeveloperAPI developerAPI, int numberOfApps) {
+        List<Developer> developers = new ArrayList<>();
+        for (int d = 0; d < 100; d++) {
+            Developer developer = new Developer("Developer " + d, "www.developer" + d + ".com");
+            developerAPI.addDeveloper(developer);
+            developers.add(developer);
+        }
+        for (int i = 0; i < numberOfApps; i++) {
+            Developer developer = developers.get(i % developers.size());
+            App app = switch (i % 3) {
+                case 0 -> new GameApp(developer, "App " + i, 10, 1.0, 1.99, true);
+                case 1 -> new EducationApp(developer, "App " + i, 10, 1.0, 1.99, 5);
+                default -> new ProductivityApp(developer, "App " + i, 10, 1.0, 1.99);
+            };
+            appStoreAPI.addApp(app);
+        }
+    }
+
+    private static long totalRatings(AppStoreAPI appStoreAPI) {
+        long total = 0;
+        for (int i = 0; i < appStoreAPI.numberOfApps(); i++) {
+            total += appStoreAPI.getAppByIndex(i).getRatings().size();
+        }
+        return total;
+    }
+}
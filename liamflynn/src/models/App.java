@@ -1,7 +1,12 @@
 package models;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * The App superclass represents App objects that can be contained in the AppStoreAPI array list.
@@ -20,7 +25,7 @@ import java.util.List;
  * @author Liam FLynn
  * @version 1.0
  */
-public abstract class App {
+public abstract class App implements Cloneable {
 
     private Developer developer;
     private String appName = "No App Name";
@@ -28,6 +33,29 @@ public abstract class App {
     private double appVersion = 1.0;
     private double appCost = 0;
     private List<models.Rating> ratings = new ArrayList<>();
+    private int appId = 0;
+
+    //running totals of the ratings that have stars, so calculateRating doesn't go through every rating.
+    //they are transient as they are worked out again from the ratings when an app is loaded.
+    private transient long totalStars = 0;
+    private transient int numberOfStarredRatings = 0;
+
+    private transient RatingListener ratingListener;
+
+    //ratings submitted from any thread by submitRating and not yet moved into the ratings list, created when first used
+    private transient volatile RatingInbox ratingInbox;
+    private static final AtomicReferenceFieldUpdater<App, RatingInbox> RATING_INBOX =
+            AtomicReferenceFieldUpdater.newUpdater(App.class, RatingInbox.class, "ratingInbox");
+
+    //set by every change since the app was last saved incrementally or loaded from the segments. A new app starts
+    //dirty, and so does one loaded from any other file, as it may differ from the segments
+    private transient boolean dirty = true;
+
+    //counts every change, so a copy of the app can tell whether it is still up to date
+    private transient int modificationCount = 0;
+
+    //counts the changes to the ratings list, so a copy can share the list of an earlier copy with the same ratings
+    private transient int ratingsModificationCount = 0;
 
     /**
      * Generates a toString for an app containing all relevant values.
@@ -45,6 +73,19 @@ public abstract class App {
                 "\n List of ratings: \n" + listRatings();
     }
 
+    /**
+     * The RatingInbox class holds the ratings submitted to an app until they are drained into its ratings list.
+     * Submitting only appends to a lock-free queue and adds to LongAdders, which spread their counts over cells so
+     * threads rating the same app don't contend on one field.
+     */
+    private static class RatingInbox {
+        private final ConcurrentLinkedQueue<Rating> ratings = new ConcurrentLinkedQueue<>();
+        private final LongAdder totalStars = new LongAdder();
+        private final LongAdder numberOfStarredRatings = new LongAdder();
+        //set by the first submission after a drain, so only that submission asks for the app to be drained
+        private final AtomicBoolean awaitingDrain = new AtomicBoolean();
+    }
+
     public App(Developer developer, String appName, double appSize, double appVersion, double appCost) {
         setDeveloper(developer);
         setAppName(appName);
@@ -54,8 +95,100 @@ public abstract class App {
     }
 
 
+    /**
+     * This method makes a copy of the app that can be saved while this app carries on changing.
+     * The copy has its own list of ratings, which share the Rating objects, and no rating listener.
+     *
+     * @param developer the developer of the copy, so apps that share a developer can share one copy of it.
+     * @return the copy.
+     */
+    public App copy(Developer developer) {
+        return copy(developer, null);
+    }
+
+    /**
+     * This method makes a copy of the app like copy(Developer), but when no ratings have been added or removed since
+     * earlierCopy was made, the new copy shares the ratings list of earlierCopy instead of copying it again.
+     * Neither copy may be changed, as they share the list.
+     *
+     * @param developer   the developer of the copy.
+     * @param earlierCopy an earlier copy of this app, or null to always copy the ratings.
+     * @return the copy.
+     */
+    public App copy(Developer developer, App earlierCopy) {
+        try {
+            App copy = (App) super.clone();
+            copy.developer = developer;
+            if (earlierCopy != null && earlierCopy.ratingsModificationCount == ratingsModificationCount) {
+                copy.ratings = earlierCopy.ratings;
+            } else {
+                copy.ratings = new ArrayList<>(ratings);
+            }
+            copy.ratingListener = null;
+            copy.ratingInbox = null;
+            return copy;
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    public int getAppId() {
+        return appId;
+    }
+
+    /**
+     * This setter method stores the ID the AppStoreAPI assigned to this app.
+     *
+     * @param appId The stable ID of the app, 0 means no ID has been assigned yet.
+     */
+    public void setAppId(int appId) {
+        this.appId = appId;
+        markDirty();
+    }
+
+    /**
+     * This method tells whether the app has changed since it was last saved incrementally.
+     *
+     * @return true if a setter or a rating has changed the app.
+     */
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * This method marks the app as changed, for setters that change what is saved.
+     */
+    protected void markDirty() {
+        dirty = true;
+        modificationCount++;
+    }
+
+    /**
+     * This method returns how many times the app has been changed. Unlike isDirty it is never reset,
+     * so it tells whether the app has changed since any earlier point, such as when it was copied.
+     *
+     * @return the number of changes made to the app since it was created or loaded.
+     */
+    public int getModificationCount() {
+        return modificationCount;
+    }
+
+    /**
+     * This method marks the app as saved. It is called once the app has been written or loaded.
+     */
+    public void markClean() {
+        dirty = false;
+    }
+
+    /**
+     * This method returns the ratings added to the app.
+     * The list can't be changed directly, ratings are added through addRating so the rating totals stay correct.
+     * The ratings themselves can't be changed either, so the totals always match their stars.
+     *
+     * @return a read-only view of the ratings.
+     */
     public List<Rating> getRatings() {
-        return ratings;
+        return Collections.unmodifiableList(ratings);
     }
 
     public Developer getDeveloper() {
@@ -63,7 +196,10 @@ public abstract class App {
     }
 
     public void setDeveloper(Developer developer) {
-        this.developer = developer;
+        if (this.developer != developer) {
+            this.developer = developer;
+            markDirty();
+        }
     }
 
     public String getAppName() {
@@ -72,6 +208,7 @@ public abstract class App {
 
     public void setAppName(String appName) {
         this.appName = appName;
+        markDirty();
     }
 
     public double getAppSize() {
@@ -86,6 +223,7 @@ public abstract class App {
     public void setAppSize(double appSize) {
         if (utils.Utilities.validRange(appSize, 1, 1000)) {
             this.appSize = appSize;
+            markDirty();
         }
     }
 
@@ -101,6 +239,7 @@ public abstract class App {
     public void setAppVersion(double appVersion) {
         if (appVersion >= 1.0) {
             this.appVersion = appVersion;
+            markDirty();
         }
     }
 
@@ -116,18 +255,153 @@ public abstract class App {
     public void setAppCost(double appCost) {
         if (appCost >= 0) {
             this.appCost = appCost;
+            markDirty();
         }
     }
 
     public abstract boolean isRecommendedApp();
 
+    /**
+     * This method returns which kind of app this is.
+     *
+     * @return the AppType matching the subclass of this app.
+     */
+    public abstract AppType getAppType();
+
     /**
      * This method adds a rating to an app.
      *
      * @param rating rating the user wants to give the app.
      */
     public void addRating(Rating rating) {
+        double oldRating = calculateRating();
         ratings.add(rating);
+        countRating(rating, 1);
+        ratingsModificationCount++;
+        markDirty();
+        notifyRatingChanged(oldRating);
+    }
+
+    /**
+     * This method submits a rating to an app from any thread, without locking.
+     * The rating is held apart from the ratings list until drainSubmittedRatings moves it in, so it isn't in
+     * getRatings, calculateRating or the saved app until then. calculateRatingIncludingSubmitted counts it straight away.
+     *
+     * @param rating rating the user wants to give the app.
+     * @return true if this is the first rating submitted since the app was last drained, so the caller should see
+     *         that it is drained, false if an earlier submission has already asked for that.
+     */
+    public boolean submitRating(Rating rating) {
+        RatingInbox inbox = ratingInbox;
+        if (inbox == null) {
+            RATING_INBOX.compareAndSet(this, null, new RatingInbox());
+            inbox = ratingInbox;
+        }
+        //the totals are added to before the rating is queued, so a drain never takes away more than was added
+        if (rating.getNumberOfStars() != 0) {
+            inbox.totalStars.add(rating.getNumberOfStars());
+            inbox.numberOfStarredRatings.increment();
+        }
+        inbox.ratings.add(rating);
+        //checked after the rating is queued, so a drain that has already cleared the flag is sure to see the rating
+        return !inbox.awaitingDrain.get() && inbox.awaitingDrain.compareAndSet(false, true);
+    }
+
+    /**
+     * This method moves the submitted ratings into the ratings list, as addRating would add them.
+     * Like addRating, it must only be called by one thread at a time, while other threads carry on submitting.
+     *
+     * @return the number of ratings moved.
+     */
+    public int drainSubmittedRatings() {
+        RatingInbox inbox = ratingInbox;
+        if (inbox == null) {
+            return 0;
+        }
+        //cleared before the queue is read, so a rating queued after this asks for another drain
+        inbox.awaitingDrain.set(false);
+        if (inbox.ratings.isEmpty()) {
+            return 0;
+        }
+        double oldRating = calculateRating();
+        int drained = 0;
+        Rating rating;
+        while ((rating = inbox.ratings.poll()) != null) {
+            ratings.add(rating);
+            countRating(rating, 1);
+            if (rating.getNumberOfStars() != 0) {
+                inbox.totalStars.add(-rating.getNumberOfStars());
+                inbox.numberOfStarredRatings.decrement();
+            }
+            drained++;
+        }
+        ratingsModificationCount++;
+        markDirty();
+        notifyRatingChanged(oldRating);
+        return drained;
+    }
+
+    /**
+     * This method tells whether any submitted ratings are waiting to be drained.
+     *
+     * @return true if submitRating has been called since the last drain.
+     */
+    public boolean hasSubmittedRatings() {
+        RatingInbox inbox = ratingInbox;
+        return inbox != null && !inbox.ratings.isEmpty();
+    }
+
+    /**
+     * This method removes a rating from an app.
+     *
+     * @param rating rating that is to be removed.
+     * @return true if the rating had been added to the app and is now removed, false if not.
+     */
+    public boolean removeRating(Rating rating) {
+        double oldRating = calculateRating();
+        if (ratings.remove(rating)) {
+            countRating(rating, -1);
+            ratingsModificationCount++;
+            markDirty();
+            notifyRatingChanged(oldRating);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * This method sets the listener that is told when the average rating of this app changes.
+     * The AppStoreAPI uses it to keep its rating index up to date.
+     *
+     * @param ratingListener the listener, or null to stop telling anything.
+     */
+    public void setRatingListener(RatingListener ratingListener) {
+        this.ratingListener = ratingListener;
+    }
+
+    /**
+     * This method tells the rating listener, if there is one, when the average rating has changed.
+     *
+     * @param oldRating the average rating before the change.
+     */
+    private void notifyRatingChanged(double oldRating) {
+        if (ratingListener != null && Double.compare(oldRating, calculateRating()) != 0) {
+            ratingListener.ratingChanged(this, oldRating);
+        }
+    }
+
+    /**
+     * This method adds a rating's stars to, or takes them from, the rating totals.
+     * Ratings without stars are left out, the same as they always have been from the average.
+     *
+     * @param rating the rating being added or removed.
+     * @param sign   1 when the rating is added, -1 when it is removed.
+     */
+    private void countRating(Rating rating, int sign) {
+        if (rating.getNumberOfStars() != 0) {
+            totalStars += sign * rating.getNumberOfStars();
+            numberOfStarredRatings += sign;
+        }
     }
 
     /**
@@ -148,6 +422,7 @@ public abstract class App {
 
     /**
      * This method calculates the average rating of an app by getting the average of all ratings added to the app.
+     * The totals it divides are kept up to date by addRating and removeRating.
      *
      * @return the double value of the calculated rating
      */
@@ -155,15 +430,45 @@ public abstract class App {
         if (ratings.isEmpty()) {
             return 0;
         }
-        double average = 0;
-        int i = 0;
+        return (double) totalStars / numberOfStarredRatings;
+    }
+
+    /**
+     * This method calculates the average rating including the submitted ratings that haven't been drained yet,
+     * without locking. While ratings are being submitted and drained at the same time it is a close estimate,
+     * and it is exact once they stop.
+     *
+     * @return the double value of the calculated rating
+     */
+    public double calculateRatingIncludingSubmitted() {
+        RatingInbox inbox = ratingInbox;
+        if (inbox == null) {
+            return calculateRating();
+        }
+        long starredRatings = numberOfStarredRatings + inbox.numberOfStarredRatings.sum();
+        if (starredRatings <= 0) {
+            return 0;
+        }
+        return (double) (totalStars + inbox.totalStars.sum()) / starredRatings;
+    }
+
+    /**
+     * XStream calls this method after loading an app, as the transient rating totals aren't in the file.
+     * It is protected rather than private, as XStream, like Java serialization, only calls a readResolve declared
+     * on a superclass for the subclasses when they can see it.
+     *
+     * @return this app, with its rating totals worked out from its ratings.
+     */
+    protected Object readResolve() {
+        if (ratings == null) {
+            ratings = new ArrayList<>();
+        }
+        totalStars = 0;
+        numberOfStarredRatings = 0;
         for (Rating rating : ratings) {
-            if (rating.getNumberOfStars() != 0) {
-                average += rating.getNumberOfStars();
-                i++;
-            }
+            countRating(rating, 1);
         }
-        return average / i;
+        return this;
     }
 
     /**
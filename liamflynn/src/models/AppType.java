@@ -0,0 +1,11 @@
+package models;
+
+/**
+ * The AppType enum names the three kinds of app that extend the App superclass.
+ * Each subclass returns its type from getAppType, so apps can be grouped by type without instanceof checks.
+ */
+public enum AppType {
+    GAME,
+    EDUCATION,
+    PRODUCTIVITY
+}
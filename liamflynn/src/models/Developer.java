@@ -7,6 +7,9 @@ public class Developer {
     private String developerName = "<no developer>";
     private String developerWebsite = "<no website>";
 
+    //set by every change since the developer was last saved incrementally, see App.isDirty
+    private transient boolean dirty = true;
+
     public Developer(String developerName, String developerWebsite) {
         this.developerName = developerName;
         this.developerWebsite = developerWebsite;
@@ -18,6 +21,7 @@ public class Developer {
 
     public void setDeveloperName(String developerName) {
         this.developerName = developerName;
+        dirty = true;
     }
 
     public String getDeveloperWebsite() {
@@ -26,6 +30,15 @@ public class Developer {
 
     public void setDeveloperWebsite(String developerWebsite) {
         this.developerWebsite = developerWebsite;
+        dirty = true;
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    public void markClean() {
+        dirty = false;
     }
 
     @Override
@@ -25,6 +25,7 @@ public class EducationApp extends App {
     public void setLevel(int level) {
         if (utils.Utilities.validRange(level, 1, 10)) {
             this.level = level;
+            markDirty();
         }
     }
 
@@ -38,6 +39,11 @@ public class EducationApp extends App {
         setLevel(level);
     }
 
+    @Override
+    public AppType getAppType() {
+        return AppType.EDUCATION;
+    }
+
     /**
      * This method evaluates whether this app meets the requirements to be recommended or not.
      * Recommended if cost is greater than 0.99, level is greater than or equal to 3 and the calculated rating is greater than or equal to 3.5.
@@ -20,6 +20,7 @@ public class GameApp extends App {
 
     public void setMultiplayer(boolean isMultiplayer) {
         this.isMultiplayer = isMultiplayer;
+        markDirty();
     }
 
     public GameApp(models.Developer developer, String appName, double appSize, double appVersion, double appCost, boolean isMultiplayer) {
@@ -32,6 +33,11 @@ public class GameApp extends App {
         setMultiplayer(isMultiplayer);
     }
 
+    @Override
+    public AppType getAppType() {
+        return AppType.GAME;
+    }
+
     /**
      * This method evaluates whether this app meets the requirements to be recommended or not.
      * Recommended if the game is multiplayer and calculated rating is greater than or equal to 4.
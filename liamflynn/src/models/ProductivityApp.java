@@ -29,6 +29,11 @@ public class ProductivityApp extends App {
         setAppCost(appCost);
     }
 
+    @Override
+    public AppType getAppType() {
+        return AppType.PRODUCTIVITY;
+    }
+
     /**
      * This method evaluates whether this app meets the requirements to be recommended or not.
      * Recommended if the cost is greater than or equal to 1.99 and calculated rating is greater than 3.
@@ -26,19 +26,22 @@ public class Rating {
         return ratingComment;
     }
 
-    public void setNumberOfStars(int numberOfStars) {
+    //a rating can't be changed once it is made. Apps keep running totals of their ratings' stars, and snapshots share
+    //the ratings of the apps, so a changed rating would leave both out of step. A rating is changed by removing it
+    //from its app and adding a new one.
+    private void setNumberOfStars(int numberOfStars) {
         if (Utilities.validRange(numberOfStars, 1, 5)) {
             this.numberOfStars = numberOfStars;
         }
     }
 
-    public void setRaterName(String raterName) {
+    private void setRaterName(String raterName) {
         if (!raterName.equals("")) {
             this.raterName = raterName;
         }
     }
 
-    public void setRatingComment(String ratingComment) {
+    private void setRatingComment(String ratingComment) {
         if (!ratingComment.equals("")) {
             this.ratingComment = ratingComment;
         }
@@ -0,0 +1,17 @@
+package models;
+
+/**
+ * The RatingListener interface is told when the average rating of an app changes,
+ * so anything that orders apps by rating can move the app without recalculating every app.
+ */
+@FunctionalInterface
+public interface RatingListener {
+
+    /**
+     * This method is called after a rating is added to or removed from an app and its average rating has changed.
+     *
+     * @param app       the app whose rating changed.
+     * @param oldRating the average rating of the app before the change.
+     */
+    void ratingChanged(App app, double oldRating);
+}
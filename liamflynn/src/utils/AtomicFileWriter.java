@@ -0,0 +1,74 @@
+package utils;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+/**
+ * The AtomicFileWriter class replaces a file so readers only ever see the old file or the whole new one.
+ * <p>
+ * The new contents are written to a temp file next to the target, which is forced to disk and then renamed over
+ * the target. If writing fails, or the program stops part way, the target is left as it was and the temp file is deleted.
+ */
+public class AtomicFileWriter {
+
+    /**
+     * Writes the contents of the file.
+     */
+    @FunctionalInterface
+    public interface Contents {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * This method replaces a file with new contents.
+     *
+     * @param target   the file to replace, it doesn't have to exist yet.
+     * @param contents writes the new contents to a buffered stream. Closing the stream only flushes it,
+     *                 so writers that close what they wrap can be used.
+     * @throws IOException if the contents can't be written, in which case the target is unchanged.
+     */
+    public static void write(File target, Contents contents) throws IOException {
+        Path targetPath = target.toPath().toAbsolutePath();
+        Path directory = targetPath.getParent();
+        Path temp = Files.createTempFile(directory, targetPath.getFileName().toString(), ".tmp");
+        try {
+            try (FileOutputStream fileOut = new FileOutputStream(temp.toFile())) {
+                BufferedOutputStream buffered = new BufferedOutputStream(fileOut, 64 * 1024);
+                contents.writeTo(new FilterOutputStream(buffered) {
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        out.write(b, off, len);
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        flush();
+                    }
+                });
+                buffered.flush();
+                fileOut.getChannel().force(true);
+            }
+            try {
+                Files.move(temp, targetPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, targetPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        forceDirectory(directory);
+    }
+
+    /**
+     * The rename is only durable once the directory is on disk too. Not every platform can open a directory,
+     * and the file itself is already safe, so failing here is ignored.
+     */
+    private static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            //the directory can't be forced on this platform
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package utils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The BackgroundSaver class runs saves on a background thread, one at a time and in the order they were asked for,
+ * so a later save of a file is never overwritten by an earlier one finishing after it.
+ * <p>
+ * The thread is a daemon thread, so callers that need a save to finish before the program exits wait on its future.
+ */
+public class BackgroundSaver {
+
+    /**
+     * Writes a snapshot that was taken before the save was submitted.
+     */
+    @FunctionalInterface
+    public interface SaveTask {
+        void save() throws Exception;
+    }
+
+    private final ExecutorService executor;
+
+    /**
+     * Constructor for objects of class BackgroundSaver.
+     *
+     * @param threadName the name of the background thread.
+     */
+    public BackgroundSaver(String threadName) {
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * This method queues a save to run on the background thread.
+     *
+     * @param task the save to run.
+     * @return a future that completes when the save has finished, or completes exceptionally with the reason it failed.
+     */
+    public CompletableFuture<Void> submit(SaveTask task) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                task.save();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+}
@@ -0,0 +1,303 @@
+package utils;
+
+import models.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * The BinaryCatalog class reads and writes the apps in a compact, versioned binary snapshot.
+ * <p>
+ * Where the xml file repeats every field name and the whole developer for every app, a snapshot stores:
+ * <ul>
+ *     <li>a header with a magic number and the format version,</li>
+ *     <li>a dictionary of the distinct developers, which apps refer to by number,</li>
+ *     <li>a table of the distinct rater names and rating comments, which ratings refer to by number,</li>
+ *     <li>each app as a type tag followed by its fields, with its ratings packed into arrays of stars, raters and comments,</li>
+ *     <li>from version 2, a footer that lets the file be read in place (see MappedCatalog): the offset of every app and
+ *     every string, the number of apps of each type, and a hash table from app name to app number. The last 8 bytes
+ *     of the file hold the offset of the footer.</li>
+ * </ul>
+ * The xml file is still used for import and export, as it can be read and edited by hand.
+ */
+public class BinaryCatalog {
+
+    public static final int MAGIC = 0x41505053; //"APPS"
+    public static final int VERSION = 2;
+    private static final int OLDEST_READABLE_VERSION = 1;
+
+    //the developer dictionary always starts straight after the magic number and version
+    public static final long DEVELOPERS_OFFSET = 8;
+
+    public static final byte EDUCATION_APP = 0;
+    public static final byte GAME_APP = 1;
+    public static final byte PRODUCTIVITY_APP = 2;
+
+    private static final int NO_DEVELOPER = -1;
+
+    /**
+     * This method writes a snapshot of the apps.
+     *
+     * @param out  where the snapshot is written, it is buffered here and flushed but not closed.
+     * @param apps the apps to write, in order.
+     * @throws IOException if the snapshot can't be written.
+     */
+    public static void write(OutputStream out, List<App> apps) throws IOException {
+        CountingOutputStream counter = new CountingOutputStream(new BufferedOutputStream(out, 64 * 1024));
+        DataOutputStream data = new DataOutputStream(counter);
+
+        //developers and rating strings are numbered the first time they are seen
+        Map<String, Integer> developerNumbers = new HashMap<>();
+        List<Developer> developers = new ArrayList<>();
+        Map<String, Integer> stringNumbers = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        for (App app : apps) {
+            Developer developer = app.getDeveloper();
+            if (developer != null && developerNumbers.putIfAbsent(developerKey(developer), developers.size()) == null) {
+                developers.add(developer);
+            }
+            for (Rating rating : app.getRatings()) {
+                number(rating.getRaterName(), stringNumbers, strings);
+                number(rating.getRatingComment(), stringNumbers, strings);
+            }
+        }
+
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+
+        data.writeInt(developers.size());
+        for (Developer developer : developers) {
+            writeString(data, developer.getDeveloperName());
+            writeString(data, developer.getDeveloperWebsite());
+        }
+
+        long[] stringOffsets = new long[strings.size()];
+        data.writeInt(strings.size());
+        for (int i = 0; i < strings.size(); i++) {
+            stringOffsets[i] = counter.count;
+            writeString(data, strings.get(i));
+        }
+
+        long[] appOffsets = new long[apps.size()];
+        int[] typeCounts = new int[3];
+        data.writeInt(apps.size());
+        for (int a = 0; a < apps.size(); a++) {
+            App app = apps.get(a);
+            appOffsets[a] = counter.count;
+            typeCounts[typeTag(app)]++;
+            data.writeByte(typeTag(app));
+            data.writeInt(app.getAppId());
+            data.writeInt(app.getDeveloper() == null ? NO_DEVELOPER : developerNumbers.get(developerKey(app.getDeveloper())));
+            writeString(data, app.getAppName());
+            data.writeDouble(app.getAppSize());
+            data.writeDouble(app.getAppVersion());
+            data.writeDouble(app.getAppCost());
+            if (app instanceof EducationApp educationApp) {
+                data.writeInt(educationApp.getLevel());
+            } else if (app instanceof GameApp gameApp) {
+                data.writeBoolean(gameApp.isMultiplayer());
+            }
+
+            List<Rating> ratings = app.getRatings();
+            data.writeInt(ratings.size());
+            for (Rating rating : ratings) {
+                data.writeByte(rating.getNumberOfStars());
+            }
+            for (Rating rating : ratings) {
+                data.writeInt(stringNumbers.get(rating.getRaterName()));
+            }
+            for (Rating rating : ratings) {
+                data.writeInt(stringNumbers.get(rating.getRatingComment()));
+            }
+        }
+
+        long footerOffset = counter.count;
+        data.writeInt(appOffsets.length);
+        for (long offset : appOffsets) {
+            data.writeLong(offset);
+        }
+        data.writeInt(stringOffsets.length);
+        for (long offset : stringOffsets) {
+            data.writeLong(offset);
+        }
+        for (int typeCount : typeCounts) {
+            data.writeInt(typeCount);
+        }
+        int[] nameTable = nameTable(apps);
+        data.writeInt(nameTable.length);
+        for (int slot : nameTable) {
+            data.writeInt(slot);
+        }
+        data.writeLong(footerOffset);
+        data.flush();
+    }
+
+    /**
+     * This method builds the open-addressing hash table of app names stored in the footer.
+     * Each slot holds an app number plus one, or 0 if empty, and is found from the hash of the app name with linear probing.
+     * Apps are added in order, so the first app with a name is the first one found.
+     *
+     * @param apps the apps being written.
+     * @return the table, whose length is a power of two at least twice the number of apps.
+     */
+    private static int[] nameTable(List<App> apps) {
+        int capacity = 2;
+        while (capacity < apps.size() * 2) {
+            capacity <<= 1;
+        }
+        int[] table = new int[capacity];
+        for (int a = 0; a < apps.size(); a++) {
+            int slot = nameHash(apps.get(a).getAppName()) & (capacity - 1);
+            while (table[slot] != 0) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            table[slot] = a + 1;
+        }
+        return table;
+    }
+
+    public static int nameHash(String appName) {
+        return (appName == null) ? 0 : appName.hashCode();
+    }
+
+    /**
+     * This method reads a snapshot, handing on each app as soon as it has been read.
+     *
+     * @param in       the snapshot, it is buffered here but not closed.
+     * @param consumer is given each app, in the order they were written.
+     * @throws IOException if the snapshot can't be read, or is not a snapshot of a version this class can read.
+     */
+    public static void read(InputStream in, Consumer<App> consumer) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in, 64 * 1024));
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not an app catalog snapshot");
+        }
+        int version = data.readInt();
+        if (version < OLDEST_READABLE_VERSION || version > VERSION) {
+            throw new IOException("Unsupported app catalog snapshot version " + version);
+        }
+
+        Developer[] developers = new Developer[data.readInt()];
+        for (int i = 0; i < developers.length; i++) {
+            developers[i] = new Developer(readString(data), readString(data));
+        }
+
+        String[] strings = new String[data.readInt()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = readString(data);
+        }
+
+        int numberOfApps = data.readInt();
+        for (int i = 0; i < numberOfApps; i++) {
+            consumer.accept(readApp(data, number -> developers[number], number -> strings[number]));
+        }
+    }
+
+    /**
+     * This method reads one app record. The developers and strings it refers to by number are looked up through the
+     * functions given, so they can come from arrays or be read from a mapped file when needed.
+     *
+     * @param data       positioned at the start of the app record.
+     * @param developers gives the developer with a number from the dictionary.
+     * @param strings    gives the string with a number from the string table.
+     * @return the app, with its ratings.
+     * @throws IOException if the record can't be read.
+     */
+    public static App readApp(DataInput data, IntFunction<Developer> developers, IntFunction<String> strings) throws IOException {
+        byte typeTag = data.readByte();
+        int appId = data.readInt();
+        int developerNumber = data.readInt();
+        Developer developer = (developerNumber == NO_DEVELOPER) ? null : developers.apply(developerNumber);
+        String appName = readString(data);
+        double appSize = data.readDouble();
+        double appVersion = data.readDouble();
+        double appCost = data.readDouble();
+        App app = switch (typeTag) {
+            case EDUCATION_APP -> new EducationApp(developer, appName, appSize, appVersion, appCost, data.readInt());
+            case GAME_APP -> new GameApp(developer, appName, appSize, appVersion, appCost, data.readBoolean());
+            case PRODUCTIVITY_APP -> new ProductivityApp(developer, appName, appSize, appVersion, appCost);
+            default -> throw new IOException("Unknown app type " + typeTag);
+        };
+        app.setAppId(appId);
+
+        int numberOfRatings = data.readInt();
+        byte[] stars = new byte[numberOfRatings];
+        data.readFully(stars);
+        int[] raters = new int[numberOfRatings];
+        for (int r = 0; r < numberOfRatings; r++) {
+            raters[r] = data.readInt();
+        }
+        for (int r = 0; r < numberOfRatings; r++) {
+            app.addRating(new Rating(stars[r], strings.apply(raters[r]), strings.apply(data.readInt())));
+        }
+        return app;
+    }
+
+    /**
+     * This output stream counts the bytes written through it, as a long so offsets past 2GB are right.
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count = 0;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    private static byte typeTag(App app) {
+        return switch (app.getAppType()) {
+            case EDUCATION -> EDUCATION_APP;
+            case GAME -> GAME_APP;
+            case PRODUCTIVITY -> PRODUCTIVITY_APP;
+        };
+    }
+
+    private static String developerKey(Developer developer) {
+        return developer.getDeveloperName() + '\u0000' + developer.getDeveloperWebsite();
+    }
+
+    private static void number(String string, Map<String, Integer> numbers, List<String> strings) {
+        if (numbers.putIfAbsent(string, strings.size()) == null) {
+            strings.add(string);
+        }
+    }
+
+    /**
+     * Strings are written as their UTF-8 length then their bytes, as writeUTF can't hold more than 64KB.
+     * A length of -1 stands for null.
+     */
+    public static void writeString(DataOutput data, String string) throws IOException {
+        if (string == null) {
+            data.writeInt(-1);
+            return;
+        }
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        data.writeInt(bytes.length);
+        data.write(bytes);
+    }
+
+    public static String readString(DataInput data) throws IOException {
+        int length = data.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        data.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,81 @@
+package utils;
+
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.io.xml.DomDriver;
+import models.*;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+
+/**
+ * The CatalogXStream class holds the one XStream used to write apps.xml and developers.xml.
+ * <p>
+ * Setting up an XStream, and the reflection and converter caches it builds the first time it meets each class,
+ * is expensive, so it is done once here rather than on every save. Once configured an XStream is thread-safe,
+ * so background saves can share it.
+ * <p>
+ * The classes and fields are given short names, and the ratings of an app are written straight inside it instead
+ * of in a ratings list, which makes the files noticeably smaller. XmlCatalogReader reads both these names and the
+ * default ones older files were written with.
+ */
+public class CatalogXStream {
+
+    public static final String GAME_APP = "game";
+    public static final String EDUCATION_APP = "education";
+    public static final String PRODUCTIVITY_APP = "productivity";
+    public static final String RATING = "rating";
+    public static final String DEVELOPER = "developer";
+
+    private static final XStream XSTREAM = create();
+
+    private static XStream create() {
+        XStream xstream = new XStream(new DomDriver());
+        XStream.setupDefaultSecurity(xstream);
+        xstream.allowTypes(new Class<?>[]{App.class, EducationApp.class, GameApp.class, ProductivityApp.class, Rating.class, Developer.class});
+
+        xstream.alias(GAME_APP, GameApp.class);
+        xstream.alias(EDUCATION_APP, EducationApp.class);
+        xstream.alias(PRODUCTIVITY_APP, ProductivityApp.class);
+        xstream.alias(RATING, Rating.class);
+        xstream.alias(DEVELOPER, Developer.class);
+
+        xstream.aliasField("name", App.class, "appName");
+        xstream.aliasField("size", App.class, "appSize");
+        xstream.aliasField("version", App.class, "appVersion");
+        xstream.aliasField("cost", App.class, "appCost");
+        xstream.aliasField("id", App.class, "appId");
+        xstream.addImplicitCollection(App.class, "ratings");
+
+        xstream.aliasField("stars", Rating.class, "numberOfStars");
+        xstream.aliasField("rater", Rating.class, "raterName");
+        xstream.aliasField("comment", Rating.class, "ratingComment");
+
+        xstream.aliasField("name", Developer.class, "developerName");
+        xstream.aliasField("website", Developer.class, "developerWebsite");
+        return xstream;
+    }
+
+    /**
+     * This method returns the shared XStream, for reading files with XStream or writing other objects.
+     *
+     * @return the configured XStream.
+     */
+    public static XStream get() {
+        return XSTREAM;
+    }
+
+    /**
+     * This method writes a list of apps or developers as an XStream object stream.
+     *
+     * @param out  where the xml is written, it is closed afterwards.
+     * @param list the apps or developers.
+     * @throws IOException if the xml can't be written.
+     */
+    public static void write(OutputStream out, Object list) throws IOException {
+        ObjectOutputStream objectOut = XSTREAM.createObjectOutputStream(new OutputStreamWriter(out));
+        objectOut.writeObject(list);
+        objectOut.close();
+    }
+}
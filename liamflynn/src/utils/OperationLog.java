@@ -0,0 +1,345 @@
+package utils;
+
+import models.*;
+
+import java.io.*;
+import java.util.zip.CRC32;
+
+/**
+ * The OperationLog class is an append-only log of the changes made since a catalog was last saved in full.
+ * <p>
+ * Each change is written as one record: its length, a CRC32 checksum and the bytes the caller wrote for it.
+ * Appending a record costs the size of the change rather than the size of the catalog. Records are flushed and
+ * forced to disk in batches, so a crash loses at most the records of the batch that was still being filled.
+ * <p>
+ * When the catalog is loaded the records are replayed onto it in order. A record cut short by a crash, or one whose
+ * checksum doesn't match, ends the replay and is cut off the file so later records are not written after it.
+ * <p>
+ * The methods are synchronized, so a save on another thread can discard the records it has saved while changes
+ * are still being appended.
+ */
+public class OperationLog implements Closeable {
+
+    /**
+     * Writes the bytes of one change.
+     */
+    @FunctionalInterface
+    public interface Entry {
+        void write(DataOutput out) throws IOException;
+    }
+
+    /**
+     * Applies one change read back from the log.
+     */
+    @FunctionalInterface
+    public interface Replayer {
+        void apply(DataInput in) throws IOException;
+    }
+
+    private final File file;
+    private final int batchSize;
+    private FileOutputStream fileOut;
+    private DataOutputStream out;
+    private int numberOfRecords = 0;
+    private int unflushedRecords = 0;
+    private long length;
+    private boolean closed = false;
+
+    /**
+     * Constructor for objects of class OperationLog, which opens the log file for appending, creating it if needed.
+     *
+     * @param file      the log file.
+     * @param batchSize how many records are appended before they are forced to disk, 1 forces every record.
+     * @throws IOException if the file can't be opened.
+     */
+    public OperationLog(File file, int batchSize) throws IOException {
+        this.file = file;
+        this.batchSize = Math.max(1, batchSize);
+        open();
+    }
+
+    private void open() throws IOException {
+        fileOut = new FileOutputStream(file, true);
+        out = new DataOutputStream(new BufferedOutputStream(fileOut));
+        length = file.length();
+    }
+
+    /**
+     * This method appends a record for one change, and forces the batch to disk once it is full.
+     *
+     * @param entry writes the bytes of the change.
+     * @throws IOException if the record can't be written.
+     */
+    public synchronized void append(Entry entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        entry.write(new DataOutputStream(bytes));
+        CRC32 checksum = new CRC32();
+        checksum.update(bytes.toByteArray());
+        out.writeInt(bytes.size());
+        out.writeInt((int) checksum.getValue());
+        bytes.writeTo(out);
+        length += 8 + bytes.size();
+        numberOfRecords++;
+        if (++unflushedRecords >= batchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * This method writes any buffered records and forces them to disk.
+     *
+     * @throws IOException if the records can't be written.
+     */
+    public synchronized void flush() throws IOException {
+        out.flush();
+        fileOut.getChannel().force(false);
+        unflushedRecords = 0;
+    }
+
+    /**
+     * This method reads every complete record in the log, in the order they were appended, and passes each to the replayer.
+     * Anything after the last complete record is cut off the file. A record with a length that is not positive,
+     * or runs past the end of the file, is treated as cut short too, as that is what a torn or zero-filled tail
+     * looks like. Every change writes at least one byte, so no real record is empty.
+     *
+     * @param replayer applies each change.
+     * @return the number of records replayed.
+     * @throws IOException if the log can't be read, or the replayer fails.
+     */
+    public synchronized int replay(Replayer replayer) throws IOException {
+        flush();
+        long fileLength = file.length();
+        long validLength = 0;
+        int replayed = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (true) {
+                int length;
+                int storedChecksum;
+                byte[] record;
+                try {
+                    length = in.readInt();
+                    storedChecksum = in.readInt();
+                    if (length <= 0 || length > fileLength - validLength - 8) {
+                        break;
+                    }
+                    record = new byte[length];
+                    in.readFully(record);
+                } catch (EOFException e) {
+                    break;
+                }
+                CRC32 checksum = new CRC32();
+                checksum.update(record);
+                if ((int) checksum.getValue() != storedChecksum) {
+                    break;
+                }
+                replayer.apply(new DataInputStream(new ByteArrayInputStream(record)));
+                validLength += 8 + length;
+                replayed++;
+            }
+        }
+        if (validLength < fileLength) {
+            fileOut.getChannel().truncate(validLength);
+        }
+        length = validLength;
+        numberOfRecords = replayed;
+        return replayed;
+    }
+
+    /**
+     * This method empties the log, once everything in it has been saved in full.
+     *
+     * @throws IOException if the file can't be truncated.
+     */
+    public synchronized void clear() throws IOException {
+        out.flush();
+        fileOut.getChannel().truncate(0);
+        fileOut.getChannel().force(false);
+        length = 0;
+        numberOfRecords = 0;
+        unflushedRecords = 0;
+    }
+
+    /**
+     * This method marks the end of the log, before the catalog is saved, so the records up to here can be discarded
+     * once the save is done.
+     *
+     * @return the position of the end of the log.
+     * @throws IOException if the buffered records can't be written.
+     */
+    public synchronized long mark() throws IOException {
+        flush();
+        return length;
+    }
+
+    /**
+     * This method discards the records before a mark, which have been saved in full, and keeps any appended since.
+     * The records that are kept are copied to a new file that replaces the log atomically.
+     *
+     * @param mark a position returned by mark.
+     * @throws IOException if the log can't be rewritten.
+     */
+    public synchronized void discardUpTo(long mark) throws IOException {
+        if (closed) {
+            return;
+        }
+        flush();
+        if (mark >= length) {
+            clear();
+            return;
+        }
+        byte[] kept = new byte[(int) (length - mark)];
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            in.seek(mark);
+            in.readFully(kept);
+        }
+        out.close();
+        try {
+            AtomicFileWriter.write(file, keptOut -> keptOut.write(kept));
+        } finally {
+            open();
+        }
+        numberOfRecords = countRecords(kept);
+    }
+
+    private static int countRecords(byte[] records) {
+        int count = 0;
+        for (int position = 0; position + 8 <= records.length; count++) {
+            position += 8 + (((records[position] & 0xFF) << 24) | ((records[position + 1] & 0xFF) << 16)
+                    | ((records[position + 2] & 0xFF) << 8) | (records[position + 3] & 0xFF));
+        }
+        return count;
+    }
+
+    /**
+     * This method returns the number of records in the log, which callers use to decide when to save in full.
+     *
+     * @return the number of records appended or replayed since the log was last cleared.
+     */
+    public synchronized int numberOfRecords() {
+        return numberOfRecords;
+    }
+
+    /**
+     * This method forces any buffered records to disk and closes the file.
+     *
+     * @throws IOException if the file can't be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flush();
+        } finally {
+            out.close();
+        }
+    }
+
+    //---------------------
+    // Record helpers
+    //---------------------
+
+    /**
+     * This method writes a whole app, with its developer and ratings, so it can be read back without a catalog.
+     *
+     * @param out where the app is written.
+     * @param app the app to write.
+     * @throws IOException if the app can't be written.
+     */
+    public static void writeApp(DataOutput out, App app) throws IOException {
+        writeAppDetails(out, app);
+        out.writeInt(app.getRatings().size());
+        for (Rating rating : app.getRatings()) {
+            writeRating(out, rating);
+        }
+    }
+
+    /**
+     * This method reads an app written by writeApp.
+     *
+     * @param in where the app is read from.
+     * @return the app, with its developer and ratings.
+     * @throws IOException if the app can't be read.
+     */
+    public static App readApp(DataInput in) throws IOException {
+        App app = readAppDetails(in);
+        int numberOfRatings = in.readInt();
+        for (int r = 0; r < numberOfRatings; r++) {
+            app.addRating(readRating(in));
+        }
+        return app;
+    }
+
+    /**
+     * This method writes the details an update can change, i.e. everything writeApp writes but the ratings, so an
+     * update doesn't cost more the more ratings the app has. Ratings are logged in records of their own.
+     *
+     * @param out where the details are written.
+     * @param app the app whose details are written.
+     * @throws IOException if the details can't be written.
+     */
+    public static void writeAppDetails(DataOutput out, App app) throws IOException {
+        out.writeByte(app.getAppType().ordinal());
+        writeDeveloper(out, app.getDeveloper());
+        BinaryCatalog.writeString(out, app.getAppName());
+        out.writeDouble(app.getAppSize());
+        out.writeDouble(app.getAppVersion());
+        out.writeDouble(app.getAppCost());
+        if (app instanceof EducationApp educationApp) {
+            out.writeInt(educationApp.getLevel());
+        } else if (app instanceof GameApp gameApp) {
+            out.writeBoolean(gameApp.isMultiplayer());
+        }
+    }
+
+    /**
+     * This method reads the details written by writeAppDetails.
+     *
+     * @param in where the details are read from.
+     * @return an app with the details and its developer, and no ratings.
+     * @throws IOException if the details can't be read.
+     */
+    public static App readAppDetails(DataInput in) throws IOException {
+        int typeOrdinal = in.readByte();
+        if (typeOrdinal < 0 || typeOrdinal >= AppType.values().length) {
+            throw new IOException("Unknown app type " + typeOrdinal);
+        }
+        Developer developer = readDeveloper(in);
+        String appName = BinaryCatalog.readString(in);
+        double appSize = in.readDouble();
+        double appVersion = in.readDouble();
+        double appCost = in.readDouble();
+        return switch (AppType.values()[typeOrdinal]) {
+            case EDUCATION -> new EducationApp(developer, appName, appSize, appVersion, appCost, in.readInt());
+            case GAME -> new GameApp(developer, appName, appSize, appVersion, appCost, in.readBoolean());
+            case PRODUCTIVITY -> new ProductivityApp(developer, appName, appSize, appVersion, appCost);
+        };
+    }
+
+    public static void writeDeveloper(DataOutput out, Developer developer) throws IOException {
+        out.writeBoolean(developer != null);
+        if (developer != null) {
+            BinaryCatalog.writeString(out, developer.getDeveloperName());
+            BinaryCatalog.writeString(out, developer.getDeveloperWebsite());
+        }
+    }
+
+    public static Developer readDeveloper(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        return new Developer(BinaryCatalog.readString(in), BinaryCatalog.readString(in));
+    }
+
+    public static void writeRating(DataOutput out, Rating rating) throws IOException {
+        out.writeByte(rating.getNumberOfStars());
+        BinaryCatalog.writeString(out, rating.getRaterName());
+        BinaryCatalog.writeString(out, rating.getRatingComment());
+    }
+
+    public static Rating readRating(DataInput in) throws IOException {
+        return new Rating(in.readByte(), BinaryCatalog.readString(in), BinaryCatalog.readString(in));
+    }
+}
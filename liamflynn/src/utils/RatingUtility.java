@@ -3,8 +3,8 @@ package utils;
 import models.Rating;
 
 import java.util.*;
-
-import static java.lang.Math.random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 public class RatingUtility {
 
@@ -32,10 +32,27 @@ public class RatingUtility {
         add("Not for me");
     }};
 
+    /**
+     * This method generates a random rating using the random number generator of the calling thread,
+     * so threads generating ratings at the same time don't contend on one generator as they did with Math.random.
+     *
+     * @return a rating of 0 to 4 stars, from one of the authors with one of the comments.
+     */
     public static Rating generateRandomRating() {
-        return new Rating((int) (random() * (5)),
-                listOfAuthors.get((int) (random() * (listOfAuthors.size() - 1))),
-                listOfComments.get((int) (random() * (listOfComments.size() - 1)))
+        return generateRandomRating(ThreadLocalRandom.current());
+    }
+
+    /**
+     * This method generates a random rating from a given random number generator, so a seeded generator such as a
+     * SplittableRandom gives the same ratings every time.
+     *
+     * @param random the generator to draw the stars, author and comment from.
+     * @return a rating of 0 to 4 stars, from one of the authors with one of the comments.
+     */
+    public static Rating generateRandomRating(RandomGenerator random) {
+        return new Rating(random.nextInt(5),
+                listOfAuthors.get(random.nextInt(listOfAuthors.size() - 1)),
+                listOfComments.get(random.nextInt(listOfComments.size() - 1))
         );
     }
 }
\ No newline at end of file
@@ -0,0 +1,219 @@
+package utils;
+
+import models.App;
+import models.Developer;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * The SegmentedCatalog class saves the apps as a directory of segments, so a save only rewrites the segments
+ * holding apps that changed.
+ * <p>
+ * The apps are split, in order, into segments of APPS_PER_SEGMENT apps, and each segment is a BinaryCatalog snapshot
+ * in its own file. A manifest lists the segment files in order. A segment is written again when:
+ * <ul>
+ *     <li>one of its apps is dirty, i.e. has been changed through a setter or a rating since it was saved,</li>
+ *     <li>the developer of one of its apps is dirty,</li>
+ *     <li>it holds different apps than when it was saved, because apps were added, deleted or sorted.</li>
+ * </ul>
+ * Changed segments are written to new files, and the manifest is then replaced atomically to point at them, so a
+ * crash part way through a save leaves the previous save whole. Files no longer in the manifest are deleted afterwards.
+ */
+public class SegmentedCatalog {
+
+    public static final int APPS_PER_SEGMENT = 1024;
+
+    private static final int MANIFEST_MAGIC = 0x53454753; //"SEGS"
+    private static final int MANIFEST_VERSION = 1;
+    private static final String MANIFEST_NAME = "manifest";
+
+    private final File directory;
+
+    //what was last saved or loaded: the file of each segment and the IDs of the apps in it, in order
+    private final List<String> savedFiles = new ArrayList<>();
+    private final List<int[]> savedAppIds = new ArrayList<>();
+    private long generation = 0;
+
+    /**
+     * The SaveResult class reports how much a save actually wrote.
+     */
+    public static class SaveResult {
+        private final int segmentsWritten;
+        private final int segments;
+        private final int appsWritten;
+        private final long bytesWritten;
+
+        SaveResult(int segmentsWritten, int segments, int appsWritten, long bytesWritten) {
+            this.segmentsWritten = segmentsWritten;
+            this.segments = segments;
+            this.appsWritten = appsWritten;
+            this.bytesWritten = bytesWritten;
+        }
+
+        public int getSegmentsWritten() {
+            return segmentsWritten;
+        }
+
+        public int getSegments() {
+            return segments;
+        }
+
+        public int getAppsWritten() {
+            return appsWritten;
+        }
+
+        public long getBytesWritten() {
+            return bytesWritten;
+        }
+
+        @Override
+        public String toString() {
+            return "Wrote " + segmentsWritten + " of " + segments + " segments, " + appsWritten + " apps, " + bytesWritten + " bytes";
+        }
+    }
+
+    /**
+     * Constructor for objects of class SegmentedCatalog.
+     *
+     * @param directory the directory the segments and manifest are kept in, it is created on the first save.
+     */
+    public SegmentedCatalog(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * This method saves the apps, writing only the segments that have changed since the last save or load
+     * through this object, and marks the apps and developers it has saved as clean.
+     *
+     * @param apps the apps to save, in order. They need distinct IDs to tell when a segment holds different apps.
+     * @return how many segments, apps and bytes were written, including the manifest.
+     * @throws IOException if a segment or the manifest can't be written, in which case the previous save is kept.
+     */
+    public SaveResult save(List<App> apps) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Can't create " + directory);
+        }
+        generation++;
+        int numberOfSegments = (apps.size() + APPS_PER_SEGMENT - 1) / APPS_PER_SEGMENT;
+        List<String> files = new ArrayList<>(numberOfSegments);
+        List<int[]> appIds = new ArrayList<>(numberOfSegments);
+        int segmentsWritten = 0;
+        int appsWritten = 0;
+        long bytesWritten = 0;
+
+        for (int s = 0; s < numberOfSegments; s++) {
+            List<App> segment = apps.subList(s * APPS_PER_SEGMENT, Math.min(apps.size(), (s + 1) * APPS_PER_SEGMENT));
+            int[] ids = new int[segment.size()];
+            boolean changed = (s >= savedFiles.size());
+            for (int i = 0; i < ids.length; i++) {
+                App app = segment.get(i);
+                ids[i] = app.getAppId();
+                changed |= app.isDirty() || (app.getDeveloper() != null && app.getDeveloper().isDirty());
+            }
+            changed |= !changed && !Arrays.equals(ids, savedAppIds.get(s));
+
+            if (changed) {
+                String fileName = "segment-" + s + "-" + generation + ".dat";
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                BinaryCatalog.write(bytes, segment);
+                AtomicFileWriter.write(new File(directory, fileName), bytes::writeTo);
+                files.add(fileName);
+                segmentsWritten++;
+                appsWritten += segment.size();
+                bytesWritten += bytes.size();
+            } else {
+                files.add(savedFiles.get(s));
+            }
+            appIds.add(ids);
+        }
+
+        ByteArrayOutputStream manifest = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(manifest);
+        data.writeInt(MANIFEST_MAGIC);
+        data.writeInt(MANIFEST_VERSION);
+        data.writeLong(generation);
+        data.writeInt(files.size());
+        for (String file : files) {
+            BinaryCatalog.writeString(data, file);
+        }
+        AtomicFileWriter.write(new File(directory, MANIFEST_NAME), manifest::writeTo);
+        bytesWritten += manifest.size();
+
+        for (App app : apps) {
+            app.markClean();
+            if (app.getDeveloper() != null) {
+                app.getDeveloper().markClean();
+            }
+        }
+        remember(files, appIds);
+        deleteUnusedFiles();
+        return new SaveResult(segmentsWritten, numberOfSegments, appsWritten, bytesWritten);
+    }
+
+    /**
+     * This method loads the apps from the segments listed in the manifest, in order, and marks them clean.
+     *
+     * @return the apps, or an empty list if nothing has been saved in the directory yet.
+     * @throws IOException if the manifest or a segment can't be read.
+     */
+    public List<App> load() throws IOException {
+        List<App> apps = new ArrayList<>();
+        File manifestFile = new File(directory, MANIFEST_NAME);
+        if (!manifestFile.exists()) {
+            remember(List.of(), List.of());
+            return apps;
+        }
+        List<String> files = new ArrayList<>();
+        try (DataInputStream data = new DataInputStream(new BufferedInputStream(new FileInputStream(manifestFile)))) {
+            if (data.readInt() != MANIFEST_MAGIC || data.readInt() != MANIFEST_VERSION) {
+                throw new IOException("Not a segment manifest");
+            }
+            generation = data.readLong();
+            int numberOfSegments = data.readInt();
+            for (int s = 0; s < numberOfSegments; s++) {
+                files.add(BinaryCatalog.readString(data));
+            }
+        }
+        List<int[]> appIds = new ArrayList<>(files.size());
+        for (String file : files) {
+            List<App> segment = new ArrayList<>();
+            try (InputStream in = new FileInputStream(new File(directory, file))) {
+                BinaryCatalog.read(in, segment::add);
+            }
+            int[] ids = new int[segment.size()];
+            for (int i = 0; i < ids.length; i++) {
+                App app = segment.get(i);
+                ids[i] = app.getAppId();
+                app.markClean();
+                if (app.getDeveloper() != null) {
+                    app.getDeveloper().markClean();
+                }
+            }
+            appIds.add(ids);
+            apps.addAll(segment);
+        }
+        remember(files, appIds);
+        return apps;
+    }
+
+    private void remember(List<String> files, List<int[]> appIds) {
+        savedFiles.clear();
+        savedFiles.addAll(files);
+        savedAppIds.clear();
+        savedAppIds.addAll(appIds);
+    }
+
+    private void deleteUnusedFiles() {
+        Set<String> used = new HashSet<>(savedFiles);
+        used.add(MANIFEST_NAME);
+        File[] files = directory.listFiles((dir, name) -> name.startsWith("segment-") && name.endsWith(".dat"));
+        if (files != null) {
+            for (File file : files) {
+                if (!used.contains(file.getName())) {
+                    file.delete();
+                }
+            }
+        }
+    }
+}
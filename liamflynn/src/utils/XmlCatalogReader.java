@@ -0,0 +1,327 @@
+package utils;
+
+import models.*;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Reader;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * The XmlCatalogReader class reads the apps.xml and developers.xml files written by XStream one element at a time,
+ * using a StAX pull parser instead of building the whole document in memory first.
+ * <p>
+ * Each App or Developer is created and handed on as soon as its element has been read, so the only memory used
+ * apart from the objects themselves is one Developer reference per app. Those are kept so that XStream
+ * {@code reference} attributes, which point back to a developer written earlier in the file, can be resolved.
+ * <p>
+ * Both the files written with XStream's default names (models.GameApp, appName, a ratings list ...) and the shorter
+ * names CatalogXStream writes (game, name, rating elements straight inside the app ...) can be read.
+ */
+public class XmlCatalogReader {
+
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    private final XMLStreamReader xml;
+
+    //the path from the root to the current element, in XStream's format e.g. /object-stream/list/models.GameApp[2]
+    private final Deque<String> path = new ArrayDeque<>();
+    //how many children of each name have been seen so far, for each element in the path
+    private final Deque<Map<String, Integer>> childCounts = new ArrayDeque<>();
+
+    //the developer of each app read so far, by app element name and then position, for resolving references
+    private final Map<String, List<Developer>> developersByAppElement = new HashMap<>();
+
+    private XmlCatalogReader(Reader in) throws XMLStreamException {
+        xml = FACTORY.createXMLStreamReader(in);
+        childCounts.push(new HashMap<>());
+    }
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        //the files never use DTDs, so turning them off keeps external entities out
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    /**
+     * This method reads every app in an apps file, handing each one on as soon as it has been read.
+     *
+     * @param in       the apps file.
+     * @param consumer is given each app, in file order.
+     * @throws XMLStreamException if the file isn't in the format XStream writes apps in.
+     */
+    public static void readApps(Reader in, Consumer<App> consumer) throws XMLStreamException {
+        XmlCatalogReader reader = new XmlCatalogReader(in);
+        try {
+            reader.readList(name -> consumer.accept(reader.readApp(name)));
+        } finally {
+            reader.xml.close();
+        }
+    }
+
+    /**
+     * This method reads every developer in a developers file, handing each one on as soon as it has been read.
+     *
+     * @param in       the developers file.
+     * @param consumer is given each developer, in file order.
+     * @throws XMLStreamException if the file isn't in the format XStream writes developers in.
+     */
+    public static void readDevelopers(Reader in, Consumer<Developer> consumer) throws XMLStreamException {
+        XmlCatalogReader reader = new XmlCatalogReader(in);
+        try {
+            reader.readList(name -> {
+                if (!name.equals("models.Developer") && !name.equals(CatalogXStream.DEVELOPER)) {
+                    throw reader.unexpected(name);
+                }
+                consumer.accept(reader.readDeveloperFields());
+            });
+        } finally {
+            reader.xml.close();
+        }
+    }
+
+    //---------------------
+    // Element readers
+    //---------------------
+
+    private interface ElementHandler {
+        void handle(String elementName) throws XMLStreamException;
+    }
+
+    /**
+     * This method steps into the object-stream and list elements and hands every item of the list to the handler.
+     */
+    private void readList(ElementHandler itemHandler) throws XMLStreamException {
+        String root = nextChild();
+        if (!"object-stream".equals(root)) {
+            throw unexpected(root);
+        }
+        String list;
+        while ((list = nextChild()) != null) {
+            if (!list.equals("list")) {
+                throw unexpected(list);
+            }
+            String item;
+            while ((item = nextChild()) != null) {
+                itemHandler.handle(item);
+            }
+        }
+    }
+
+    /**
+     * This method reads one app element, whose name is the class of the app.
+     */
+    private App readApp(String elementName) throws XMLStreamException {
+        AppType appType = switch (elementName) {
+            case "models.GameApp", CatalogXStream.GAME_APP -> AppType.GAME;
+            case "models.EducationApp", CatalogXStream.EDUCATION_APP -> AppType.EDUCATION;
+            case "models.ProductivityApp", CatalogXStream.PRODUCTIVITY_APP -> AppType.PRODUCTIVITY;
+            default -> throw unexpected(elementName);
+        };
+        String appElement = path.peek();
+        Developer developer = null;
+        String appName = "No App Name";
+        double appSize = 0;
+        double appVersion = 1.0;
+        double appCost = 0;
+        int appId = 0;
+        int level = 0;
+        boolean isMultiplayer = false;
+        List<Rating> ratings = new ArrayList<>();
+
+        String field;
+        while ((field = nextChild()) != null) {
+            switch (field) {
+                case "developer" -> developer = readDeveloper();
+                case "appName", "name" -> appName = text();
+                case "appSize", "size" -> appSize = Double.parseDouble(text());
+                case "appVersion", "version" -> appVersion = Double.parseDouble(text());
+                case "appCost", "cost" -> appCost = Double.parseDouble(text());
+                case "appId", "id" -> appId = Integer.parseInt(text());
+                case "level" -> level = Integer.parseInt(text());
+                case "isMultiplayer" -> isMultiplayer = Boolean.parseBoolean(text());
+                case "ratings" -> readRatings(ratings);
+                case CatalogXStream.RATING -> ratings.add(readRating());
+                default -> skip();
+            }
+        }
+
+        App app = switch (appType) {
+            case GAME -> new GameApp(developer, appName, appSize, appVersion, appCost, isMultiplayer);
+            case EDUCATION -> new EducationApp(developer, appName, appSize, appVersion, appCost, level);
+            case PRODUCTIVITY -> new ProductivityApp(developer, appName, appSize, appVersion, appCost);
+        };
+        app.setAppId(appId);
+        for (Rating rating : ratings) {
+            app.addRating(rating);
+        }
+        rememberDeveloper(appElement, developer);
+        return app;
+    }
+
+    private void readRatings(List<Rating> ratings) throws XMLStreamException {
+        String item;
+        while ((item = nextChild()) != null) {
+            if (!item.equals("models.Rating") && !item.equals(CatalogXStream.RATING)) {
+                throw unexpected(item);
+            }
+            ratings.add(readRating());
+        }
+    }
+
+    private Rating readRating() throws XMLStreamException {
+        int numberOfStars = 0;
+        String raterName = "<rater name>";
+        String ratingComment = "<no comment>";
+        String field;
+        while ((field = nextChild()) != null) {
+            switch (field) {
+                case "numberOfStars", "stars" -> numberOfStars = Integer.parseInt(text());
+                case "raterName", "rater" -> raterName = text();
+                case "ratingComment", "comment" -> ratingComment = text();
+                default -> skip();
+            }
+        }
+        return new Rating(numberOfStars, raterName, ratingComment);
+    }
+
+    /**
+     * This method reads the developer of an app, which is either written out in full or is a reference to the
+     * developer of an app earlier in the file.
+     */
+    private Developer readDeveloper() throws XMLStreamException {
+        String reference = xml.getAttributeValue(null, "reference");
+        if (reference == null) {
+            return readDeveloperFields();
+        }
+        String target = resolve(reference);
+        skip();
+        //XStream only refers back to the developer element of an earlier app: /object-stream/list/<app>[n]/developer
+        String[] segments = target.split("/");
+        if (segments.length == 5 && segments[4].equals("developer")) {
+            String appElement = segments[3];
+            int position = 1;
+            int bracket = appElement.indexOf('[');
+            if (bracket >= 0) {
+                position = Integer.parseInt(appElement.substring(bracket + 1, appElement.length() - 1));
+                appElement = appElement.substring(0, bracket);
+            }
+            List<Developer> developers = developersByAppElement.get(appElement);
+            if (developers != null && position <= developers.size()) {
+                return developers.get(position - 1);
+            }
+        }
+        throw new XMLStreamException("Unsupported reference " + reference + " at " + currentPath(), xml.getLocation());
+    }
+
+    private Developer readDeveloperFields() throws XMLStreamException {
+        String developerName = "<no developer>";
+        String developerWebsite = "<no website>";
+        String field;
+        while ((field = nextChild()) != null) {
+            switch (field) {
+                case "developerName", "name" -> developerName = text();
+                case "developerWebsite", "website" -> developerWebsite = text();
+                default -> skip();
+            }
+        }
+        return new Developer(developerName, developerWebsite);
+    }
+
+    private void rememberDeveloper(String appElement, Developer developer) {
+        int bracket = appElement.indexOf('[');
+        String elementName = (bracket >= 0) ? appElement.substring(0, bracket) : appElement;
+        developersByAppElement.computeIfAbsent(elementName, key -> new ArrayList<>()).add(developer);
+    }
+
+    //---------------------
+    // Cursor methods
+    //---------------------
+
+    /**
+     * This method moves to the next child of the current element.
+     *
+     * @return the name of the child, or null if the current element has ended (and has been left).
+     */
+    private String nextChild() throws XMLStreamException {
+        while (xml.hasNext()) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String name = xml.getLocalName();
+                int count = childCounts.peek().merge(name, 1, Integer::sum);
+                path.push(count == 1 ? name : name + "[" + count + "]");
+                childCounts.push(new HashMap<>());
+                return name;
+            }
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                leave();
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * This method reads the text of the current element and leaves it.
+     */
+    private String text() throws XMLStreamException {
+        String text = xml.getElementText();
+        leave();
+        return text;
+    }
+
+    /**
+     * This method skips the rest of the current element, including any children, and leaves it.
+     */
+    private void skip() throws XMLStreamException {
+        while (nextChild() != null) {
+            skip();
+        }
+    }
+
+    private void leave() {
+        path.pop();
+        childCounts.pop();
+    }
+
+    private String currentPath() {
+        StringBuilder builder = new StringBuilder();
+        Iterator<String> fromRoot = path.descendingIterator();
+        while (fromRoot.hasNext()) {
+            builder.append('/').append(fromRoot.next());
+        }
+        return builder.toString();
+    }
+
+    /**
+     * This method turns a reference relative to the current element into an absolute path.
+     */
+    private String resolve(String reference) {
+        if (reference.startsWith("/")) {
+            return reference;
+        }
+        Deque<String> target = new ArrayDeque<>(path);
+        for (String segment : reference.split("/")) {
+            if (segment.equals("..")) {
+                target.pop();
+            } else if (!segment.equals(".") && !segment.isEmpty()) {
+                target.push(segment.endsWith("[1]") ? segment.substring(0, segment.length() - 3) : segment);
+            }
+        }
+        StringBuilder builder = new StringBuilder();
+        Iterator<String> fromRoot = target.descendingIterator();
+        while (fromRoot.hasNext()) {
+            builder.append('/').append(fromRoot.next());
+        }
+        return builder.toString();
+    }
+
+    private XMLStreamException unexpected(String elementName) {
+        return new XMLStreamException("Unexpected element " + elementName + " at " + currentPath(), xml.getLocation());
+    }
+}
@@ -6,6 +6,14 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class AppStoreAPITest {
@@ -84,6 +92,40 @@ public class AppStoreAPITest {
     @Nested
     class CRUDMethods {
 
+        @Test
+        void addAppAssignsUniqueIdsThatSurviveDeletesAndSorting() {
+            int empiresId = gameAppAboveBoundary.getAppId();
+            int cookOffId = gameAppOnBoundary.getAppId();
+            assertNotEquals(empiresId, cookOffId);
+            assertEquals(gameAppAboveBoundary, appStore.getAppById(empiresId));
+
+            appStore.deleteAppByIndex(0);
+            appStore.sortAppsByNameAscending();
+            assertEquals(gameAppAboveBoundary, appStore.getAppById(empiresId));
+            assertEquals(gameAppOnBoundary, appStore.getAppById(cookOffId));
+            assertEquals(gameAppAboveBoundary, appStore.getAppByIndex(appStore.getAppIndexById(empiresId)));
+        }
+
+        @Test
+        void deleteAppByIdRemovesOnlyThatApp() {
+            int empiresId = gameAppAboveBoundary.getAppId();
+            assertEquals(gameAppAboveBoundary, appStore.deleteAppById(empiresId));
+            assertEquals(6, appStore.numberOfApps());
+            assertNull(appStore.getAppById(empiresId));
+            assertNull(appStore.deleteAppById(empiresId));
+            assertFalse(appStore.isValidAppId(empiresId));
+            assertEquals(gameAppOnBoundary, appStore.getAppById(gameAppOnBoundary.getAppId()));
+        }
+
+        @Test
+        void updateByIdOnlyUpdatesAppsOfTheRightType() {
+            int cookOffId = gameAppOnBoundary.getAppId();
+            assertFalse(appStore.updateEducationAppById(cookOffId, developerLego, "Brick", 10, 2.0, 1.0, 5));
+            assertTrue(appStore.updateGameAppById(cookOffId, developerEAGames, "CookOff 2", 10, 2.0, 1.0, false));
+            assertEquals("CookOff 2", appStore.getAppById(cookOffId).getAppName());
+            assertFalse(appStore.updateGameAppById(999, developerEAGames, "Nothing", 10, 2.0, 1.0, false));
+        }
+
     }
 
     @Nested
@@ -135,17 +177,215 @@ public class AppStoreAPITest {
             assertTrue(apps.contains("WeDo"));
         }
 
+        @Test
+        void reportsListTheIndexOfEveryAppInOnePass() {
+            AppReport allApps = appStore.reportAllApps();
+            assertEquals(7, allApps.getCount());
+            assertArrayEquals(new int[]{0, 1, 2, 3, 4, 5, 6}, allApps.getIndexes());
+            assertEquals(appStore.listAllApps(), allApps.toString());
+
+            AppReport gameApps = appStore.reportAllGameApps();
+            assertArrayEquals(new int[]{2, 6}, gameApps.getIndexes());
+            assertTrue(gameApps.toString().contains("Index: 6 "));
+        }
+
+        @Test
+        void reportsGiveEachDuplicateNameItsOwnIndex() {
+            appStore.addApp(new GameApp(developerEAGames, "Empires", 10, 1.0, 0, false));
+            String gameApps = appStore.listAllGameApps();
+            assertTrue(gameApps.contains("Index: 2 "));
+            assertTrue(gameApps.contains("Index: 7 "));
+        }
+
+        @Test
+        void reportsWithNoMatchingAppsReturnTheNoAppsMessage() {
+            AppReport recommended = appStore.reportAllRecommendedGameApps();
+            assertTrue(recommended.isEmpty());
+            assertEquals(0, recommended.getCount());
+            assertTrue(recommended.toString().contains("No recommended apps"));
+        }
+
+        @Test
+        void listRecommendedAppsKeepsEveryRecommendedApp() {
+            appStore.addApp(setupEducationAppWithRating(3, 4));
+            appStore.addApp(setupProductivityAppWithRating(3, 4));
+
+            AppReport recommended = appStore.reportAllRecommendedApps();
+            assertArrayEquals(new int[]{7, 8}, recommended.getIndexes());
+            assertTrue(recommended.toString().contains("WeDo"));
+            assertTrue(recommended.toString().contains("Evernote"));
+        }
 
     }
 
     @Nested
     class ReportingMethods {
 
+        @Test
+        void numberOfAppsOfEachTypeIsKeptUpToDate() {
+            assertEquals(2, appStore.numberOfGameApps());
+            assertEquals(2, appStore.numberOfEducationApps());
+            assertEquals(3, appStore.numberOfProductivityApps());
+            assertEquals(0, emptyAppStore.numberOfAppsOfType(AppType.GAME));
+
+            appStore.addApp(gameAppBelowBoundary);
+            assertEquals(3, appStore.numberOfGameApps());
+            appStore.deleteAppByIndex(appStore.getAppIndex("Empires"));
+            assertEquals(2, appStore.numberOfGameApps());
+            assertEquals(3, appStore.numberOfProductivityApps());
+        }
+
+        @Test
+        void numberOfAppsByChosenDeveloperFollowsUpdates() {
+            assertEquals(2, appStore.numberOfAppsByChosenDeveloper(developerLego));
+            assertEquals(0, appStore.numberOfAppsByChosenDeveloper(developerSphero));
+            assertEquals(0, appStore.numberOfAppsByChosenDeveloper(null));
+
+            assertTrue(appStore.updateEducationApp(0, developerSphero, "WeDo", 1, 1.0, 0, 1));
+            assertEquals(1, appStore.numberOfAppsByChosenDeveloper(developerLego));
+            assertEquals(1, appStore.numberOfAppsByChosenDeveloper(developerSphero));
+            assertArrayEquals(new int[]{4}, appStore.reportAllAppsByChosenDeveloper(developerLego).getIndexes());
+        }
+
+        @Test
+        void appsByChosenDeveloperStillMatchAfterWebsiteChanges() {
+            DeveloperAPI developerAPI = new DeveloperAPI();
+            developerAPI.addDeveloper(developerEAGames);
+            developerAPI.updateDeveloperWebsite("EA Games", "www.ea.com");
+
+            assertEquals(1, appStore.numberOfAppsByChosenDeveloper(developerAPI.getDeveloperByName("EA Games")));
+            assertEquals(1, appStore.numberOfAppsByChosenDeveloper(new Developer("EA Games", "www.ea.com")));
+            String apps = appStore.listAllAppsByChosenDeveloper(developerEAGames);
+            assertTrue(apps.contains("Index: 2 "));
+            assertTrue(apps.contains("Empires"));
+        }
+
+        @Test
+        void typeListingsShowCurrentIndexesAfterSorting() {
+            appStore.sortAppsByNameAscending();
+            assertArrayEquals(new int[]{1, 3}, appStore.reportAllGameApps().getIndexes());
+        }
+
     }
 
     @Nested
     class SearchingMethods {
 
+        @Test
+        void listAllAppsByNameMatchesAnyPartOfTheNameIgnoringCase() {
+            assertArrayEquals(new int[]{2}, appStore.reportAllAppsByName("PIRE").getIndexes());
+            assertArrayEquals(new int[]{0, 2, 3, 4}, appStore.reportAllAppsByName("e").getIndexes());
+            assertArrayEquals(new int[]{0, 1, 2, 3, 4, 5, 6}, appStore.reportAllAppsByName("").getIndexes());
+            assertTrue(appStore.listAllAppsByName("Minecraft").contains("No apps of this name."));
+            assertTrue(appStore.listAllAppsByName("ook").contains("Index: 6 "));
+        }
+
+        @Test
+        void listAllAppsByNameFollowsRenamesAndDeletes() {
+            appStore.updateProductivityApp(3, developerApple, "Notepad", 1, 1.0, 0);
+            assertEquals(0, appStore.reportAllAppsByName("keeper").getCount());
+            assertArrayEquals(new int[]{3}, appStore.reportAllAppsByName("notep").getIndexes());
+
+            appStore.deleteAppByIndex(0);
+            assertArrayEquals(new int[]{2}, appStore.reportAllAppsByName("notep").getIndexes());
+            assertEquals(0, appStore.reportAllAppsByName("wedo").getCount());
+        }
+
+        @Test
+        void reportAllAppsByNamePrefixOnlyMatchesTheStartOfNames() {
+            assertArrayEquals(new int[]{2, 4}, appStore.reportAllAppsByNamePrefix("e").getIndexes());
+            assertArrayEquals(new int[]{2}, appStore.reportAllAppsByNamePrefix("emp").getIndexes());
+            assertEquals(0, appStore.reportAllAppsByNamePrefix("pires").getCount());
+        }
+
+        @Test
+        void shortAndPrefixSearchesFollowRenamesAndDeletes() {
+            assertArrayEquals(new int[]{3}, appStore.reportAllAppsByName("ee").getIndexes());
+            appStore.updateProductivityApp(3, developerApple, "Notepad", 1, 1.0, 0);
+            assertEquals(0, appStore.reportAllAppsByName("ee").getCount());
+            assertArrayEquals(new int[]{3}, appStore.reportAllAppsByName("ad").getIndexes());
+            assertArrayEquals(new int[]{3}, appStore.reportAllAppsByNamePrefix("NOTEP").getIndexes());
+            assertEquals(0, appStore.reportAllAppsByNamePrefix("notek").getCount());
+
+            appStore.deleteAppByIndex(0);
+            assertArrayEquals(new int[]{2}, appStore.reportAllAppsByNamePrefix("no").getIndexes());
+            assertEquals(0, appStore.reportAllAppsByName("we").getCount());
+            assertEquals(6, appStore.reportAllAppsByNamePrefix("").getCount());
+        }
+
+        @Test
+        void listAppsAboveOrEqualAGivenStarRatingFollowsNewRatings() {
+            assertTrue(appStore.listAllAppsAboveOrEqualAGivenStarRating(1).contains("No apps have a rating of 1"));
+
+            gameAppOnBoundary.addRating(new Rating(4, "John", "Good"));
+            edAppBelowBoundary.addRating(new Rating(2, "Mary", "Okay"));
+            assertArrayEquals(new int[]{6}, appStore.reportAllAppsAboveOrEqualAGivenStarRating(3).getIndexes());
+            assertArrayEquals(new int[]{0, 6}, appStore.reportAllAppsAboveOrEqualAGivenStarRating(2).getIndexes());
+
+            gameAppOnBoundary.addRating(new Rating(1, "Jane", "Bad"));
+            assertEquals(0, appStore.reportAllAppsAboveOrEqualAGivenStarRating(3).getCount());
+            assertEquals(7, appStore.reportAllAppsAboveOrEqualAGivenStarRating(0).getCount());
+        }
+
+        @Test
+        void reportTopRatedAppsListsHighestRatingFirst() {
+            prodAppBelowBoundary.addRating(new Rating(3, "John", "Fine"));
+            gameAppOnBoundary.addRating(new Rating(5, "John", "Great"));
+            edAppAboveBoundary.addRating(new Rating(4, "John", "Good"));
+
+            assertArrayEquals(new int[]{6, 4}, appStore.reportTopRatedApps(2).getIndexes());
+            assertEquals(7, appStore.reportTopRatedApps(10).getCount());
+
+            appStore.deleteAppByIndex(6);
+            assertArrayEquals(new int[]{4, 3}, appStore.reportTopRatedApps(2).getIndexes());
+        }
+
+        @Test
+        void getAppIndexIgnoresCaseAndReturnsMinusOneWhenNotFound() {
+            assertEquals(2, appStore.getAppIndex("Empires"));
+            assertEquals(2, appStore.getAppIndex("empires"));
+            assertEquals(6, appStore.getAppIndex("COOKOFF"));
+            assertEquals(-1, appStore.getAppIndex("Minecraft"));
+            assertEquals(-1, emptyAppStore.getAppIndex("Empires"));
+        }
+
+        @Test
+        void getAppByNameReturnsExactMatchOnly() {
+            assertEquals(gameAppAboveBoundary, appStore.getAppByName("Empires"));
+            assertNull(appStore.getAppByName("empires"));
+            assertNull(appStore.getAppByName("Minecraft"));
+        }
+
+        @Test
+        void nameLookupsFollowDeletesAndUpdates() {
+            assertEquals(edAppBelowBoundary, appStore.deleteAppByIndex(0));
+            assertEquals(-1, appStore.getAppIndex("WeDo"));
+            assertEquals(1, appStore.getAppIndex("Empires"));
+
+            assertTrue(appStore.updateGameApp(1, developerEAGames, "Empires II", 1, 1.0, 0, true));
+            assertEquals(-1, appStore.getAppIndex("Empires"));
+            assertEquals(1, appStore.getAppIndex("Empires II"));
+            assertEquals(gameAppAboveBoundary, appStore.getAppByName("Empires II"));
+        }
+
+        @Test
+        void nameLookupsFindTheFirstAppWithANameAfterRenames() {
+            assertTrue(appStore.updateGameApp(6, developerEAGames, "EMPIRES", 1, 1.0, 0, true));
+            assertEquals(2, appStore.getAppIndex("Empires"));
+            assertEquals(-1, appStore.getAppIndex("CookOff"));
+            assertEquals(2, appStore.numberOfAppsByChosenDeveloper(developerEAGames));
+            assertEquals(0, appStore.numberOfAppsByChosenDeveloper(developerKoolGames));
+
+            assertTrue(appStore.updateGameApp(2, developerEAGames, "Tetris", 1, 1.0, 0, true));
+            assertEquals(6, appStore.getAppIndex("empires"));
+            assertEquals(2, appStore.getAppIndex("tetris"));
+
+            assertTrue(appStore.updateProductivityApp(1, developerMicrosoft, "Tetris", 1, 1.0, 0));
+            assertEquals(1, appStore.getAppIndex("Tetris"));
+            assertEquals(-1, appStore.getAppIndex("Outlook"));
+            assertEquals(gameAppOnBoundary, appStore.getAppByName("EMPIRES"));
+        }
+
     }
 
     @Nested
@@ -173,6 +413,55 @@ public class AppStoreAPITest {
             assertEquals(edAppBelowBoundary, appStore.getAppByIndex(6));
         }
 
+        @Test
+        void sortAppsByCostDescendingKeepsEqualCostsInOrder() {
+            appStore.sortApps(AppSortKey.COST, false);
+            assertEquals(gameAppAboveBoundary, appStore.getAppByIndex(0));
+            assertEquals(edAppAboveBoundary, appStore.getAppByIndex(1));
+            assertEquals(prodAppOnBoundary, appStore.getAppByIndex(2));
+            assertEquals(gameAppOnBoundary, appStore.getAppByIndex(3));
+            assertEquals(edAppBelowBoundary, appStore.getAppByIndex(4));
+            assertEquals(prodAppBelowBoundary, appStore.getAppByIndex(5));
+            assertEquals(prodAppInvalidData, appStore.getAppByIndex(6));
+            assertEquals(3, appStore.getAppIndex("CookOff"));
+        }
+
+        @Test
+        void parallelSortGivesTheSameOrderAsSequentialSort() {
+            AppStoreAPI parallelStore = new AppStoreAPI();
+            for (int i = 0; i < appStore.numberOfApps(); i++) {
+                parallelStore.addApp(appStore.getAppByIndex(i));
+            }
+            appStore.sortApps(AppSortKey.DEVELOPER, true, false);
+            parallelStore.sortApps(AppSortKey.DEVELOPER, true, true);
+            for (int i = 0; i < appStore.numberOfApps(); i++) {
+                assertEquals(appStore.getAppByIndex(i), parallelStore.getAppByIndex(i));
+            }
+        }
+
+        @Test
+        void sortedViewsLeaveTheAppsListInPlace() {
+            AppReport byName = appStore.reportAppsSortedBy(AppSortKey.NAME, true);
+            assertArrayEquals(new int[]{5, 6, 4, 2, 3, 1, 0}, byName.getIndexes());
+            assertEquals(edAppBelowBoundary, appStore.getAppByIndex(0));
+            assertEquals(gameAppOnBoundary, appStore.getAppByIndex(6));
+            assertTrue(appStore.listAppsSortedBy(AppSortKey.NAME, true).startsWith("Apps sorted by name: \nIndex: 5 "));
+        }
+
+        @Test
+        void sortedViewsFollowChangesToTheApps() {
+            assertArrayEquals(new int[]{5, 6, 4, 2, 3, 1, 0}, appStore.reportAppsSortedBy(AppSortKey.NAME, true).getIndexes());
+            appStore.addApp(new GameApp(developerEAGames, "Asteroids", 10, 1.0, 0, false));
+            assertArrayEquals(new int[]{5, 7, 6, 4, 2, 3, 1, 0}, appStore.reportAppsSortedBy(AppSortKey.NAME, true).getIndexes());
+            appStore.deleteAppByIndex(0);
+            assertArrayEquals(new int[]{4, 6, 5, 3, 1, 2, 0}, appStore.reportAppsSortedBy(AppSortKey.NAME, true).getIndexes());
+
+            int[] byRating = appStore.reportAppsSortedBy(AppSortKey.RATING, false).getIndexes();
+            assertEquals(0, byRating[0]);
+            gameAppOnBoundary.addRating(new Rating(5, "John", "Great"));
+            assertEquals(appStore.getAppIndex("CookOff"), appStore.reportAppsSortedBy(AppSortKey.RATING, false).getIndexes()[0]);
+        }
+
         @Test
         void sortByNameAscendingDoesntCrashWhenListIsEmpty() {
             assertEquals(0,emptyAppStore.numberOfApps());
@@ -181,6 +470,420 @@ public class AppStoreAPITest {
 
     }
 
+    @Nested
+    class ConcurrentAccess {
+
+        private static final int APPS_ADDED = 500;
+        private static final int RATINGS_ADDED = 500;
+
+        @Test
+        void readersAndWritersCanUseTheStoreAtTheSameTime() throws Exception {
+            ExecutorService executor = Executors.newFixedThreadPool(6);
+            CountDownLatch start = new CountDownLatch(1);
+            CountDownLatch writersDone = new CountDownLatch(2);
+            List<Future<?>> tasks = new ArrayList<>();
+
+            tasks.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < APPS_ADDED; i++) {
+                    appStore.addApp(new GameApp(developerEAGames, "Added " + i, 10, 1.0, 0, false));
+                }
+                writersDone.countDown();
+                return null;
+            }));
+            tasks.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < RATINGS_ADDED; i++) {
+                    assertTrue(appStore.addRating(appStore.getAppIndex("WeDo"), new Rating(1 + i % 5, "Rater " + i, "Comment")));
+                }
+                writersDone.countDown();
+                return null;
+            }));
+            for (int reader = 0; reader < 4; reader++) {
+                tasks.add(executor.submit(() -> {
+                    start.await();
+                    while (writersDone.getCount() > 0) {
+                        int numberOfApps = appStore.numberOfApps();
+                        assertTrue(numberOfApps >= 7);
+                        assertNotNull(appStore.listAllApps());
+                        assertTrue(appStore.reportAppsSortedBy(AppSortKey.NAME, true).getIndexes().length >= numberOfApps);
+                        assertNotNull(appStore.reportTopRatedApps(3));
+                        assertNotNull(appStore.getAppByName("CookOff"));
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+            assertEquals(7 + APPS_ADDED, appStore.numberOfApps());
+            assertEquals(RATINGS_ADDED, appStore.getAppByName("WeDo").getRatings().size());
+            assertEquals(7 + APPS_ADDED, appStore.reportAppsSortedBy(AppSortKey.NAME, true).getIndexes().length);
+        }
+
+        @Test
+        void submittedRatingsReachTheRatingIndexWhenDrained() {
+            int cookOffId = appStore.getAppByName("CookOff").getAppId();
+            assertTrue(appStore.submitRating(cookOffId, new Rating(5, "John", "Great")));
+            assertFalse(appStore.submitRating(-1, new Rating(5, "John", "Great")));
+            assertEquals(0, appStore.getAppByName("CookOff").getRatings().size());
+            assertEquals(1, appStore.drainSubmittedRatings());
+            assertEquals(0, appStore.drainSubmittedRatings());
+            assertEquals(1, appStore.getAppByName("CookOff").getRatings().size());
+            assertEquals(appStore.getAppIndex("CookOff"), appStore.reportAppsSortedBy(AppSortKey.RATING, false).getIndexes()[0]);
+        }
+
+        @Test
+        void ratingsSubmittedAfterADrainAreDrainedByTheNextOne() {
+            int cookOffId = appStore.getAppByName("CookOff").getAppId();
+            appStore.submitRating(cookOffId, new Rating(5, "John", "Great"));
+            appStore.submitRating(cookOffId, new Rating(4, "Mary", "Good"));
+            assertEquals(2, appStore.drainSubmittedRatings());
+            appStore.submitRating(cookOffId, new Rating(3, "Tom", "Fine"));
+            assertEquals(1, appStore.drainSubmittedRatings());
+            assertEquals(3, appStore.getAppByName("CookOff").getRatings().size());
+        }
+
+        @Test
+        void ratingsSubmittedToADeletedAppAreDropped() {
+            App cookOff = appStore.getAppByName("CookOff");
+            appStore.submitRating(cookOff.getAppId(), new Rating(5, "John", "Great"));
+            appStore.deleteAppByIndex(appStore.getAppIndex("CookOff"));
+            assertEquals(0, appStore.drainSubmittedRatings());
+            assertFalse(cookOff.hasSubmittedRatings());
+        }
+    }
+
+    @Nested
+    class OperationLogging {
+
+        private File directory;
+
+        @BeforeEach
+        void setUpDirectory() throws IOException {
+            directory = Files.createTempDirectory("app-store").toFile();
+        }
+
+        @AfterEach
+        void deleteDirectory() {
+            for (File file : directory.listFiles()) {
+                if (file.isDirectory()) {
+                    for (File segment : file.listFiles()) {
+                        segment.delete();
+                    }
+                }
+                file.delete();
+            }
+            directory.delete();
+        }
+
+        //an AppStoreAPI that keeps its files in the test's directory
+        private AppStoreAPI storeInDirectory() {
+            return new AppStoreAPI() {
+                @Override
+                public String fileName() {
+                    return new File(directory, "apps.xml").getPath();
+                }
+
+                @Override
+                public String logFileName() {
+                    return new File(directory, "apps.log").getPath();
+                }
+
+                @Override
+                public String segmentsDirectoryName() {
+                    return new File(directory, "segments").getPath();
+                }
+            };
+        }
+
+        @Test
+        void anIncrementalSaveRightAfterLoadingTheSegmentsWritesNoSegments() throws Exception {
+            AppStoreAPI store = storeInDirectory();
+            store.addApp(new GameApp(developerEAGames, "Tetris", 1, 1.0, 0, false));
+            store.addApp(new GameApp(developerEAGames, "Empires", 1, 1.0, 0, false));
+            assertEquals(1, store.saveIncrementally().getSegmentsWritten());
+            store.loadSegments();
+            assertEquals(0, store.saveIncrementally().getSegmentsWritten());
+        }
+
+        @Test
+        void aRenameSavedToTheXmlFileReachesTheSegmentsAfterALoad() throws Exception {
+            AppStoreAPI store = storeInDirectory();
+            store.addApp(new GameApp(developerEAGames, "Tetris", 1, 1.0, 0, false));
+            store.saveIncrementally();
+            assertTrue(store.updateGameApp(0, developerEAGames, "Tetris II", 1, 1.0, 0, false));
+            store.save();
+            store.load();
+            assertEquals(1, store.saveIncrementally().getSegmentsWritten());
+            store.loadSegments();
+            assertEquals("Tetris II", store.getAppByIndex(0).getAppName());
+        }
+
+        @Test
+        void changesReplayedFromTheLogAreSavedIncrementally() throws Exception {
+            AppStoreAPI store = storeInDirectory();
+            store.openOperationLog(1);
+            store.addApp(new GameApp(developerEAGames, "Tetris", 1, 1.0, 0, false));
+            store.saveIncrementally();
+            store.save();
+            assertTrue(store.addRating(0, new Rating(5, "John", "Great")));
+            store.load();
+            assertEquals(1, store.saveIncrementally().getSegmentsWritten());
+            assertEquals(0, store.saveIncrementally().getSegmentsWritten());
+        }
+
+        @Test
+        void replayedAppsKeepTheIdsLaterChangesReferTo() throws Exception {
+            AppStoreAPI store = storeInDirectory();
+            store.openOperationLog(1);
+            store.addApp(new GameApp(developerEAGames, "Tetris", 1, 1.0, 0, false));
+            store.addApp(new GameApp(developerEAGames, "Empires", 1, 1.0, 0, false));
+            store.save();
+            store.deleteAppByIndex(1);
+            store.save();
+            //the new app is given ID 3, where loading the file alone would give it ID 2
+            store.addApp(new GameApp(developerKoolGames, "CookOff", 1, 1.0, 0, true));
+            store.addRating(store.getAppIndex("CookOff"), new Rating(5, "John", "Great"));
+            store.closeOperationLog();
+
+            AppStoreAPI reloaded = storeInDirectory();
+            reloaded.openOperationLog(1);
+            reloaded.load();
+            assertEquals(2, reloaded.numberOfApps());
+            assertEquals(1, reloaded.getAppByName("CookOff").getRatings().size());
+            assertEquals(store.getAppByName("CookOff").getAppId(), reloaded.getAppByName("CookOff").getAppId());
+            reloaded.closeOperationLog();
+        }
+
+        @Test
+        void loadedAppsWithIdsOutOfRangeAreGivenNewOnes() throws Exception {
+            AppStoreAPI store = storeInDirectory();
+            store.addApp(new GameApp(developerEAGames, "Tetris", 1, 1.0, 0, false));
+            store.addApp(new GameApp(developerEAGames, "Empires", 1, 1.0, 0, false));
+            store.getAppByName("Tetris").setAppId(Integer.MAX_VALUE);
+            store.getAppByName("Empires").setAppId(-5);
+            store.save();
+
+            AppStoreAPI reloaded = storeInDirectory();
+            reloaded.load();
+            int tetrisId = reloaded.getAppByName("Tetris").getAppId();
+            int empiresId = reloaded.getAppByName("Empires").getAppId();
+            assertTrue(tetrisId > 0 && tetrisId <= 3);
+            assertTrue(empiresId > 0 && empiresId <= 3);
+            assertNotEquals(tetrisId, empiresId);
+            assertEquals(reloaded.getAppByName("Tetris"), reloaded.getAppById(tetrisId));
+            reloaded.addApp(new GameApp(developerKoolGames, "CookOff", 1, 1.0, 0, true));
+            assertEquals(3, reloaded.numberOfApps());
+        }
+
+        @Test
+        void updatesAreLoggedWithoutTheRatingsAndReplayedOntoThem() throws Exception {
+            AppStoreAPI store = storeInDirectory();
+            store.openOperationLog(1);
+            store.addApp(new GameApp(developerEAGames, "Tetris", 1, 1.0, 0, false));
+            for (int i = 0; i < 100; i++) {
+                store.addRating(0, new Rating(4, "Rater " + i, "A comment long enough to notice"));
+            }
+            store.save();
+            assertTrue(store.updateGameApp(0, developerEAGames, "Tetris II", 2, 2.0, 1.99, true));
+            assertTrue(new File(directory, "apps.log").length() < 200);
+            store.closeOperationLog();
+
+            AppStoreAPI reloaded = storeInDirectory();
+            reloaded.openOperationLog(1);
+            reloaded.load();
+            GameApp tetris = (GameApp) reloaded.getAppByName("Tetris II");
+            assertTrue(tetris.isMultiplayer());
+            assertEquals(100, tetris.getRatings().size());
+            reloaded.closeOperationLog();
+        }
+
+        @Test
+        void aFullLogIsSavedAndEmptied() throws Exception {
+            AppStoreAPI store = storeInDirectory();
+            store.addApp(new GameApp(developerEAGames, "Tetris", 1, 1.0, 0, false));
+            store.save();
+            store.openOperationLog(1000);
+            assertFalse(store.saveIfLogIsFull());
+            for (int i = 0; i < AppStoreAPI.COMPACTION_THRESHOLD; i++) {
+                store.addRating(0, new Rating(1 + i % 5, "Rater " + i, "Comment"));
+            }
+            store.submitRating(store.getAppByIndex(0).getAppId(), new Rating(5, "Late", "Submitted"));
+            assertTimeoutPreemptively(Duration.ofSeconds(30), () -> assertTrue(store.saveIfLogIsFull()));
+            assertFalse(store.saveIfLogIsFull());
+            store.closeOperationLog();
+            assertEquals(0, new File(store.logFileName()).length());
+
+            AppStoreAPI reloaded = storeInDirectory();
+            reloaded.load();
+            assertEquals(AppStoreAPI.COMPACTION_THRESHOLD + 1, reloaded.getAppByIndex(0).getRatings().size());
+        }
+
+        @Test
+        void changesMadeBeforeLoadingAreNotReplayedOntoTheFile() throws Exception {
+            AppStoreAPI saved = storeInDirectory();
+            saved.addApp(new GameApp(developerEAGames, "Tetris", 1, 1.0, 0, false));
+            saved.save();
+
+            AppStoreAPI store = storeInDirectory();
+            store.openOperationLog(1);
+            store.addApp(new GameApp(developerKoolGames, "CookOff", 1, 1.0, 0, true));
+            store.addRating(0, new Rating(5, "John", "Great"));
+            store.load();
+            assertEquals(1, store.numberOfApps());
+            assertEquals(0, store.getAppByName("Tetris").getRatings().size());
+            store.closeOperationLog();
+
+            AppStoreAPI reloaded = storeInDirectory();
+            reloaded.openOperationLog(1);
+            reloaded.load();
+            assertEquals(1, reloaded.numberOfApps());
+            assertEquals(0, reloaded.getAppByName("Tetris").getRatings().size());
+            reloaded.closeOperationLog();
+        }
+
+        @Test
+        void changesAfterABackgroundSaveAreLoggedOnTopOfTheFile() throws Exception {
+            AppStoreAPI store = storeInDirectory();
+            store.openOperationLog(1);
+            store.addApp(new GameApp(developerEAGames, "Tetris", 1, 1.0, 0, false));
+            store.saveInBackground().get();
+            store.addRating(0, new Rating(5, "John", "Great"));
+            store.closeOperationLog();
+
+            AppStoreAPI reloaded = storeInDirectory();
+            reloaded.openOperationLog(1);
+            reloaded.load();
+            assertEquals(1, reloaded.getAppByName("Tetris").getRatings().size());
+            reloaded.closeOperationLog();
+        }
+
+        @Test
+        void aFailedBackgroundSaveDoesNotStartLogging() throws Exception {
+            AppStoreAPI store = new AppStoreAPI() {
+                @Override
+                public String fileName() {
+                    return new File(directory, "missing/apps.xml").getPath();
+                }
+
+                @Override
+                public String logFileName() {
+                    return new File(directory, "apps.log").getPath();
+                }
+            };
+            store.openOperationLog(1);
+            store.addApp(new GameApp(developerEAGames, "Tetris", 1, 1.0, 0, false));
+            assertThrows(ExecutionException.class, () -> store.saveInBackground().get());
+            store.addRating(0, new Rating(5, "John", "Great"));
+            store.closeOperationLog();
+            assertEquals(0, new File(directory, "apps.log").length());
+        }
+    }
+
+    @Nested
+    class Snapshots {
+
+        @Test
+        void aSnapshotIsPublishedAfterEachChange() {
+            CatalogSnapshot before = appStore.getSnapshot();
+            assertEquals(7, before.numberOfApps());
+            appStore.addApp(new GameApp(developerEAGames, "Asteroids", 10, 1.0, 0, false));
+            CatalogSnapshot after = appStore.getSnapshot();
+            assertEquals(before.getVersion() + 1, after.getVersion());
+            assertEquals(8, after.numberOfApps());
+            assertEquals(7, before.numberOfApps());
+            assertEquals(appStore.listAllApps(), after.reportAllApps().toString());
+            assertEquals(0, emptyAppStore.getSnapshot().getVersion());
+        }
+
+        @Test
+        void unchangedAppsShareTheirCopiesBetweenSnapshots() {
+            CatalogSnapshot before = appStore.getSnapshot();
+            int index = appStore.getAppIndex("Empires");
+            assertTrue(appStore.updateGameApp(index, developerEAGames, "Empires II", 1, 1.0, 0, true));
+            CatalogSnapshot after = appStore.getSnapshot();
+            assertEquals("Empires", before.getApps().get(index).getAppName());
+            assertEquals("Empires II", after.getApps().get(index).getAppName());
+            assertNotSame(gameAppAboveBoundary, after.getApps().get(index));
+            for (int i = 0; i < after.numberOfApps(); i++) {
+                if (i != index) {
+                    assertSame(before.getApps().get(i), after.getApps().get(i));
+                }
+            }
+            appStore.deleteAppByIndex(0);
+            assertSame(after.getApps().get(index), appStore.getSnapshot().getApps().get(index - 1));
+        }
+
+        @Test
+        void appsAddedAcrossManyChunksArePublishedOneAtATime() {
+            CatalogSnapshot first = appStore.getSnapshot();
+            for (int i = 0; i < CatalogSnapshot.CHUNK_SIZE * 2 + 5; i++) {
+                appStore.addApp(new GameApp(developerEAGames, "Asteroids " + i, 10, 1.0, 0, false));
+                assertEquals(8 + i, appStore.getSnapshot().numberOfApps());
+            }
+            CatalogSnapshot last = appStore.getSnapshot();
+            assertEquals(first.getVersion() + CatalogSnapshot.CHUNK_SIZE * 2 + 5, last.getVersion());
+            assertSame(first.getApps().get(0), last.getApps().get(0));
+            assertEquals("Asteroids " + (CatalogSnapshot.CHUNK_SIZE * 2 + 4), last.getApps().get(last.numberOfApps() - 1).getAppName());
+            assertEquals(appStore.listAllApps(), last.reportAllApps().toString());
+
+            assertTrue(appStore.addRating(CatalogSnapshot.CHUNK_SIZE + 3, new Rating(5, "John", "Great")));
+            CatalogSnapshot rated = appStore.getSnapshot();
+            assertEquals(1, rated.getApps().get(CatalogSnapshot.CHUNK_SIZE + 3).getRatings().size());
+            assertEquals(0, last.getApps().get(CatalogSnapshot.CHUNK_SIZE + 3).getRatings().size());
+            assertSame(last.getApps().get(CatalogSnapshot.CHUNK_SIZE + 4), rated.getApps().get(CatalogSnapshot.CHUNK_SIZE + 4));
+        }
+
+        @Test
+        void aBatchWithoutChangesKeepsTheSnapshot() {
+            CatalogSnapshot before = appStore.getSnapshot();
+            appStore.simulateRatings(0, 42);
+            assertFalse(appStore.addRating(-1, new Rating(5, "John", "Great")));
+            assertSame(before, appStore.getSnapshot());
+        }
+    }
+
+    @Nested
+    class SimulationMethods {
+
+        private AppStoreAPI storeWithManyApps() {
+            AppStoreAPI store = new AppStoreAPI();
+            for (int i = 0; i < AppStoreAPI.APPS_PER_SIMULATION_TASK * 3; i++) {
+                store.addApp(new ProductivityApp(developerApple, "Tool " + i, 10, 1.0, 0));
+            }
+            return store;
+        }
+
+        @Test
+        void simulateRatingsGivesEveryAppTheNumberOfRatings() {
+            AppStoreAPI store = storeWithManyApps();
+            assertEquals(store.numberOfApps() * 5, store.simulateRatings(5, 42));
+            for (int i = 0; i < store.numberOfApps(); i++) {
+                assertEquals(5, store.getAppByIndex(i).getRatings().size());
+            }
+            assertEquals(0, emptyAppStore.simulateRatings(5, 42));
+        }
+
+        @Test
+        void theSameSeedGivesTheSameRatings() {
+            AppStoreAPI first = storeWithManyApps();
+            AppStoreAPI second = storeWithManyApps();
+            first.simulateRatings(3, 42);
+            second.simulateRatings(3, 42, new ForkJoinPool(2));
+            for (int i = 0; i < first.numberOfApps(); i++) {
+                assertEquals(first.getAppByIndex(i).listRatings(), second.getAppByIndex(i).listRatings());
+            }
+            AppStoreAPI third = storeWithManyApps();
+            third.simulateRatings(3, 43);
+            assertNotEquals(first.listAllApps(), third.listAllApps());
+        }
+    }
+
     //--------------------------------------------
     // Helper Methods
     //--------------------------------------------
@@ -0,0 +1,89 @@
+package controllers;
+
+import models.Developer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeveloperInternerTest {
+
+    private DeveloperInterner interner;
+    private Developer developerLego = new Developer("Lego", "www.lego.com");
+
+    @BeforeEach
+    void setUp() {
+        interner = new DeveloperInterner();
+    }
+
+    @Test
+    void equalDevelopersAreInternedToTheFirstOne() {
+        assertSame(developerLego, interner.intern(developerLego));
+        assertSame(developerLego, interner.intern(new Developer("Lego", "www.lego.com")));
+        assertEquals(1, interner.size());
+        assertNull(interner.intern(null));
+    }
+
+    @Test
+    void developersThatOnlyShareANameKeepTheirOwnObject() {
+        interner.intern(developerLego);
+        Developer oldLego = new Developer("Lego", "www.old-lego.com");
+        assertSame(oldLego, interner.intern(oldLego));
+        Developer upperCaseLego = new Developer("LEGO", "www.lego.com");
+        assertSame(upperCaseLego, interner.intern(upperCaseLego));
+        assertSame(developerLego, interner.get("lego"));
+    }
+
+    @Test
+    void registeredDevelopersReplaceOnesOnlyKnownFromApps() {
+        interner.intern(new Developer("Lego", "www.old-lego.com"));
+        interner.register(developerLego);
+        assertSame(developerLego, interner.intern(new Developer("Lego", "www.lego.com")));
+        assertSame(developerLego, interner.get("lego"));
+    }
+
+    @Test
+    void removeOnlyRemovesTheCanonicalDeveloper() {
+        interner.register(developerLego);
+        interner.remove(new Developer("Lego", "www.lego.com"));
+        assertSame(developerLego, interner.get("Lego"));
+        interner.remove(developerLego);
+        assertNull(interner.get("Lego"));
+    }
+
+    @Test
+    void developerApiSharesItsDevelopersWithTheAppStore() {
+        DeveloperAPI developerAPI = new DeveloperAPI();
+        AppStoreAPI appStore = new AppStoreAPI();
+        appStore.setDeveloperInterner(developerAPI.getDeveloperInterner());
+        developerAPI.addDeveloper(developerLego);
+        assertSame(developerLego, appStore.getDeveloperInterner().intern(new Developer("Lego", "www.lego.com")));
+        developerAPI.removeDeveloper("Lego");
+        assertNull(appStore.getDeveloperInterner().get("Lego"));
+    }
+
+    @Test
+    void loadingTheDevelopersDropsTheOnesFromTheLastLoad() throws Exception {
+        File file = File.createTempFile("developers", ".xml");
+        DeveloperAPI developerAPI = new DeveloperAPI() {
+            @Override
+            public String fileName() {
+                return file.getPath();
+            }
+        };
+        try {
+            developerAPI.addDeveloper(developerLego);
+            developerAPI.save();
+            developerAPI.getDeveloperInterner().intern(new Developer("Kool Games", "www.kool.com"));
+
+            developerAPI.load();
+            assertNull(developerAPI.getDeveloperInterner().get("Kool Games"));
+            assertEquals(developerLego, developerAPI.getDeveloperInterner().get("Lego"));
+            assertSame(developerAPI.getDeveloperByName("Lego"), developerAPI.getDeveloperInterner().get("Lego"));
+        } finally {
+            file.delete();
+        }
+    }
+}
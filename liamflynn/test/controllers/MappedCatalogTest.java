@@ -0,0 +1,173 @@
+package controllers;
+
+import models.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import utils.BinaryCatalog;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappedCatalogTest {
+
+    private Developer developerLego = new Developer("Lego", "www.lego.com");
+    private Developer developerEAGames = new Developer("EA Games", "www.eagames.com");
+    private List<App> apps;
+    private File file;
+    private MappedCatalog catalog;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        EducationApp weDo = new EducationApp(developerLego, "WeDo", 23, 1.5, 3.99, 3);
+        weDo.addRating(new Rating(2, "Scotty", "Loved the UX"));
+        weDo.addRating(new Rating(4, "JohnD", "Loved the UX"));
+        GameApp empires = new GameApp(developerEAGames, "Empires", 5, 1.0, 5.0, true);
+        empires.addRating(new Rating(5, "Scotty", "Great App"));
+        ProductivityApp notes = new ProductivityApp(developerLego, "Notes", 10, 2.0, 1.99);
+        GameApp otherEmpires = new GameApp(developerLego, "Empires", 7, 2.0, 0.99, false);
+        apps = List.of(weDo, empires, notes, otherEmpires);
+        catalog = write(apps);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        catalog.close();
+        file.delete();
+    }
+
+    private MappedCatalog write(List<App> appsToWrite) throws IOException {
+        file = File.createTempFile("apps", ".dat");
+        try (OutputStream out = new FileOutputStream(file)) {
+            BinaryCatalog.write(out, appsToWrite);
+        }
+        return new MappedCatalog(file);
+    }
+
+    @Nested
+    class Counting {
+
+        @Test
+        void countsAreReadFromTheFooter() {
+            assertEquals(4, catalog.numberOfApps());
+            assertEquals(2, catalog.numberOfAppsOfType(AppType.GAME));
+            assertEquals(1, catalog.numberOfAppsOfType(AppType.EDUCATION));
+            assertEquals(1, catalog.numberOfAppsOfType(AppType.PRODUCTIVITY));
+        }
+    }
+
+    @Nested
+    class Getters {
+
+        @Test
+        void appsAreBuiltWithTheSameFieldsAndRatings() {
+            for (int i = 0; i < apps.size(); i++) {
+                App app = catalog.getAppByIndex(i);
+                assertEquals(apps.get(i).getClass(), app.getClass());
+                assertEquals(apps.get(i).appSummary(), app.appSummary());
+                assertEquals(apps.get(i).listRatings(), app.listRatings());
+            }
+            assertNull(catalog.getAppByIndex(-1));
+            assertNull(catalog.getAppByIndex(4));
+        }
+
+        @Test
+        void getAppByNameReturnsTheFirstAppWithAnExactName() {
+            assertEquals(1, catalog.getAppIndex("Empires"));
+            assertTrue(((GameApp) catalog.getAppByName("Empires")).isMultiplayer());
+            assertEquals("Notes", catalog.getAppByName("Notes").getAppName());
+            assertNull(catalog.getAppByName("notes"));
+            assertNull(catalog.getAppByName("Minecraft"));
+            assertEquals(-1, catalog.getAppIndex(null));
+        }
+
+        @Test
+        void manyAppsCanBeFoundByName() throws IOException {
+            catalog.close();
+            file.delete();
+            List<App> manyApps = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                manyApps.add(new ProductivityApp(developerLego, "App " + i, 1, 1.0, 1.0));
+            }
+            catalog = write(manyApps);
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(i, catalog.getAppIndex("App " + i));
+            }
+        }
+    }
+
+    @Nested
+    class ParallelLoading {
+
+        @Test
+        void readAllAppsKeepsTheSavedOrderAcrossChunks() throws IOException {
+            catalog.close();
+            file.delete();
+            List<App> manyApps = new ArrayList<>();
+            for (int i = 0; i < MappedCatalog.APPS_PER_CHUNK * 3 + 7; i++) {
+                App app = (i % 2 == 0) ? new GameApp(developerEAGames, "Game " + i, 1, 1.0, 1.0, true)
+                        : new ProductivityApp(developerLego, "Tool " + i, 1, 1.0, 1.0);
+                app.addRating(new Rating(i % 6, "Rater " + (i % 10), "Comment"));
+                manyApps.add(app);
+            }
+            catalog = write(manyApps);
+
+            ForkJoinPool pool = new ForkJoinPool(4);
+            try {
+                List<App> loaded = catalog.readAllApps(pool);
+                assertEquals(manyApps.size(), loaded.size());
+                for (int i = 0; i < manyApps.size(); i++) {
+                    assertEquals(manyApps.get(i).appSummary(), loaded.get(i).appSummary());
+                    assertEquals(manyApps.get(i).getClass(), loaded.get(i).getClass());
+                }
+                //apps of the same developer share the developer decoded from the dictionary
+                assertSame(loaded.get(0).getDeveloper(), loaded.get(MappedCatalog.APPS_PER_CHUNK * 2).getDeveloper());
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        @Test
+        void readAllAppsOfAnEmptySnapshotIsEmpty() throws IOException {
+            catalog.close();
+            file.delete();
+            catalog = write(List.of());
+            assertEquals(0, catalog.readAllApps(ForkJoinPool.commonPool()).size());
+        }
+    }
+
+    @Nested
+    class ListingMethods {
+
+        @Test
+        void listingsMatchTheStoreTheSnapshotWasTakenFrom() {
+            AppStoreAPI appStore = new AppStoreAPI();
+            for (App app : apps) {
+                appStore.addApp(app);
+            }
+            assertEquals(appStore.listAllApps(), catalog.listAllApps());
+            assertEquals(appStore.listAllGameApps(), catalog.listAllAppsOfType(AppType.GAME));
+            assertEquals(appStore.listAllEducationApps(), catalog.listAllAppsOfType(AppType.EDUCATION));
+            assertEquals(appStore.listAllProductivityApps(), catalog.listAllAppsOfType(AppType.PRODUCTIVITY));
+        }
+
+        @Test
+        void anEmptySnapshotListsNoApps() throws IOException {
+            catalog.close();
+            file.delete();
+            catalog = write(List.of());
+            assertEquals(0, catalog.numberOfApps());
+            assertEquals("No apps added yet", catalog.listAllApps());
+            assertEquals("No Game apps", catalog.listAllAppsOfType(AppType.GAME));
+            assertNull(catalog.getAppByName("WeDo"));
+        }
+    }
+}
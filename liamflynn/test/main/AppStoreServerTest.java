@@ -0,0 +1,124 @@
+package main;
+
+import controllers.AppStoreAPI;
+import controllers.DeveloperAPI;
+import models.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AppStoreServerTest {
+
+    private Developer developerLego = new Developer("Lego", "www.lego.com");
+
+    private AppStoreAPI appStore;
+    private DeveloperAPI developerAPI;
+    private AppStoreServer server;
+
+    @BeforeEach
+    void setUp() {
+        appStore = new AppStoreAPI();
+        developerAPI = new DeveloperAPI();
+        developerAPI.addDeveloper(developerLego);
+        appStore.addApp(new EducationApp(developerLego, "WeDo", 1, 1.0, 0, 1));
+        server = new AppStoreServer(appStore, developerAPI);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.close();
+    }
+
+    @Nested
+    class Requests {
+
+        @Test
+        void readsAreAnsweredWithTheirLines() {
+            assertEquals("OK 1\nPONG\n", server.handle("PING"));
+            assertEquals("OK 1\n1\n", server.handle("COUNT"));
+            assertEquals("OK 1\n" + appStore.getAppByName("WeDo").appSummary().strip() + "\n", server.handle("GET_APP\tWeDo"));
+            assertTrue(server.handle("LIST_ALL_APPS").startsWith("OK "));
+        }
+
+        @Test
+        void appsAreAddedWithARegisteredDeveloper() {
+            assertTrue(server.handle("ADD_APP\tGame\tLego\tBricks Battle\t100\t1.0\t2.99\tY").startsWith("OK 1\nAdded app Bricks Battle"));
+            assertTrue(((GameApp) appStore.getAppByName("Bricks Battle")).isMultiplayer());
+            assertTrue(server.handle("ADD_APP\tGame\tNobody\tBricks Battle\t100\t1.0\t2.99\tY").startsWith("ERROR No developer"));
+            assertTrue(server.handle("ADD_DEVELOPER\tSphero\twww.sphero.com").startsWith("OK"));
+            assertTrue(server.handle("ADD_APP\tProductivity\tSphero\tPlanner\t100\t1.0\t0").startsWith("OK"));
+            assertEquals(3, appStore.numberOfApps());
+        }
+
+        @Test
+        void badRequestsAreAnsweredWithAnError() {
+            assertEquals("ERROR Unknown command FLY\n", server.handle("FLY"));
+            assertEquals("ERROR GET_APP needs more arguments\n", server.handle("GET_APP"));
+            assertEquals("ERROR Not a number big\n", server.handle("ADD_APP\tGame\tLego\tX\tbig\t1.0\t0\tN"));
+            assertEquals("ERROR No app named Missing\n", server.handle("RATE\tMissing\t5\tJohn\tGreat"));
+        }
+
+        @Test
+        void ratingsAreAddedToTheAppWhenDrained() {
+            assertEquals("OK 1\nRated WeDo\n", server.handle("RATE\tWeDo\t5\tJohn\tGreat"));
+            appStore.drainSubmittedRatings();
+            assertEquals(5.0, appStore.getAppByName("WeDo").calculateRating(), 0.01);
+        }
+    }
+
+    @Nested
+    class Connections {
+
+        @Test
+        void clientsCanSendRequestsOverTheSocket() throws IOException {
+            int port = server.start(0);
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+                 BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                 Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)) {
+                out.write("PING\nCOUNT\nQUIT\n");
+                out.flush();
+                assertEquals("OK 1", in.readLine());
+                assertEquals("PONG", in.readLine());
+                assertEquals("OK 1", in.readLine());
+                assertEquals("1", in.readLine());
+                assertNull(in.readLine());
+            }
+        }
+
+        @Test
+        void ratingsAreStillDrainedAfterADrainFails() throws Exception {
+            CountDownLatch drains = new CountDownLatch(2);
+            AppStoreAPI failingOnce = new AppStoreAPI() {
+                @Override
+                public int drainSubmittedRatings() {
+                    drains.countDown();
+                    if (drains.getCount() == 1) {
+                        throw new IllegalStateException("Failed drain");
+                    }
+                    return super.drainSubmittedRatings();
+                }
+            };
+            //the server prints the failed drain's stack trace, which is caught here rather than left in the test output
+            PrintStream standardError = System.err;
+            ByteArrayOutputStream error = new ByteArrayOutputStream();
+            System.setErr(new PrintStream(error, true, StandardCharsets.UTF_8));
+            try (AppStoreServer failingServer = new AppStoreServer(failingOnce, developerAPI)) {
+                failingServer.start(0);
+                assertTrue(drains.await(10, TimeUnit.SECONDS));
+            } finally {
+                System.setErr(standardError);
+            }
+            assertTrue(error.toString(StandardCharsets.UTF_8).contains("Failed drain"));
+        }
+    }
+}
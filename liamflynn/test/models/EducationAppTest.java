@@ -71,6 +71,11 @@ public class EducationAppTest {
             assertEquals(0, edAppInvalidData.getAppCost());
         }
 
+        @Test
+        void getAppType() {
+            assertEquals(AppType.EDUCATION, edAppBelowBoundary.getAppType());
+        }
+
         @Test
         void getLevel() {
             assertEquals(1, edAppBelowBoundary.getLevel());
@@ -70,6 +70,11 @@ public class GameAppTest {
             assertEquals(0, gmAppInvalidData.getAppCost());
         }
 
+        @Test
+        void getAppType() {
+            assertEquals(AppType.GAME, gmAppBelowBoundary.getAppType());
+        }
+
         @Test
         void isMultiplayer() {
             assertTrue(gmAppBelowBoundary.isMultiplayer());
@@ -194,6 +199,109 @@ public class GameAppTest {
             assertTrue(stringContents.contains("Excellent"));
         }
 
+        @Test
+        void calculateRatingFollowsAddedAndRemovedRatings() {
+            GameApp gmApp = setupGameAppWithRating(3, 4);
+            Rating noStars = new Rating(0, "Zero", "No stars");
+            gmApp.addRating(noStars);
+            assertEquals(3.5, gmApp.calculateRating(), 0.01);
+
+            Rating fiveStars = new Rating(5, "Five", "Top");
+            gmApp.addRating(fiveStars);
+            assertEquals(4.0, gmApp.calculateRating(), 0.01);
+
+            assertTrue(gmApp.removeRating(fiveStars));
+            assertFalse(gmApp.removeRating(fiveStars));
+            assertTrue(gmApp.removeRating(noStars));
+            assertEquals(3.5, gmApp.calculateRating(), 0.01);
+            assertEquals(2, gmApp.getRatings().size());
+        }
+
+        @Test
+        void settersAndRatingsMarkTheAppDirty() {
+            GameApp gmApp = setupGameAppWithRating(3, 4);
+            assertTrue(gmApp.isDirty());
+            gmApp.markClean();
+            gmApp.setMultiplayer(false);
+            assertTrue(gmApp.isDirty());
+            gmApp.markClean();
+            gmApp.addRating(new Rating(5, "Five", "Top"));
+            assertTrue(gmApp.isDirty());
+            gmApp.markClean();
+            gmApp.setAppSize(5000);
+            assertFalse(gmApp.isDirty());
+        }
+
+        @Test
+        void copyIsNotChangedByLaterChangesToTheApp() {
+            GameApp gmApp = setupGameAppWithRating(3, 4);
+            Developer developerCopy = new Developer(gmApp.getDeveloper().getDeveloperName(), "www.copy.com");
+            GameApp copy = (GameApp) gmApp.copy(developerCopy);
+            gmApp.addRating(new Rating(1, "Late", "Added after the copy"));
+            gmApp.setAppName("Renamed");
+            assertEquals(2, copy.getRatings().size());
+            assertEquals(3.5, copy.calculateRating(), 0.01);
+            assertEquals("WeDo", copy.getAppName());
+            assertSame(developerCopy, copy.getDeveloper());
+            assertEquals(gmApp.isMultiplayer(), copy.isMultiplayer());
+        }
+
+        @Test
+        void copyMadeFromAnEarlierCopyHasTheLatestRatings() {
+            GameApp gmApp = setupGameAppWithRating(3, 4);
+            App first = gmApp.copy(gmApp.getDeveloper());
+            gmApp.setAppName("Renamed");
+            App renamed = gmApp.copy(gmApp.getDeveloper(), first);
+            assertEquals("Renamed", renamed.getAppName());
+            assertEquals(first.listRatings(), renamed.listRatings());
+            gmApp.addRating(new Rating(1, "Late", "Added after the copy"));
+            App rated = gmApp.copy(gmApp.getDeveloper(), renamed);
+            assertEquals(3, rated.getRatings().size());
+            assertEquals(2, renamed.getRatings().size());
+            assertEquals(gmApp.calculateRating(), rated.calculateRating(), 0.01);
+        }
+
+        @Test
+        void ratingsSubmittedFromManyThreadsAreAllDrained() throws InterruptedException {
+            GameApp gmApp = setupGameAppWithRating(3, 4);
+            Thread[] threads = new Thread[8];
+            for (int t = 0; t < threads.length; t++) {
+                int stars = (t % 2 == 0) ? 5 : 1;
+                threads[t] = new Thread(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        gmApp.submitRating(new Rating(stars, "Rater", "Submitted"));
+                    }
+                });
+                threads[t].start();
+            }
+            //draining while the threads are still submitting
+            int drained = gmApp.drainSubmittedRatings();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertEquals((3.0 + 4 + 40_000 * 5 + 40_000) / 80_002, gmApp.calculateRatingIncludingSubmitted(), 0.0001);
+            drained += gmApp.drainSubmittedRatings();
+            assertEquals(80_000, drained);
+            assertFalse(gmApp.hasSubmittedRatings());
+            assertEquals(80_002, gmApp.getRatings().size());
+            assertEquals((3.0 + 4 + 40_000 * 5 + 40_000) / 80_002, gmApp.calculateRating(), 0.0001);
+            assertEquals(gmApp.calculateRating(), gmApp.calculateRatingIncludingSubmitted(), 0.0001);
+        }
+
+        @Test
+        void submittedRatingsAreOnlyAddedWhenDrained() {
+            GameApp gmApp = setupGameAppWithRating(3, 4);
+            gmApp.markClean();
+            gmApp.submitRating(new Rating(5, "Late", "Submitted"));
+            assertEquals(2, gmApp.getRatings().size());
+            assertEquals(3.5, gmApp.calculateRating(), 0.01);
+            assertEquals(4.0, gmApp.calculateRatingIncludingSubmitted(), 0.01);
+            assertFalse(gmApp.isDirty());
+            assertEquals(1, gmApp.drainSubmittedRatings());
+            assertEquals(4.0, gmApp.calculateRating(), 0.01);
+            assertTrue(gmApp.isDirty());
+        }
+
     }
 
     @Nested
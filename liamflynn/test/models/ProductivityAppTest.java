@@ -70,6 +70,11 @@ public class ProductivityAppTest {
             assertEquals(2.99, prAppAboveBoundary.getAppCost());
             assertEquals(0, prAppInvalidData.getAppCost());
         }
+
+        @Test
+        void getAppType() {
+            assertEquals(AppType.PRODUCTIVITY, prAppBelowBoundary.getAppType());
+        }
     }
 
     @Nested
@@ -0,0 +1,61 @@
+package utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AtomicFileWriterTest {
+
+    private Path directory;
+    private File target;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("atomic");
+        target = directory.resolve("apps.xml").toFile();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (File file : directory.toFile().listFiles()) {
+            file.delete();
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    void theTargetIsCreatedAndThenReplaced() throws IOException {
+        AtomicFileWriter.write(target, out -> out.write("first".getBytes()));
+        assertEquals("first", Files.readString(target.toPath()));
+        AtomicFileWriter.write(target, out -> out.write("second".getBytes()));
+        assertEquals("second", Files.readString(target.toPath()));
+        assertEquals(1, directory.toFile().listFiles().length);
+    }
+
+    @Test
+    void closingTheStreamStillLetsTheFileBeForcedAndRenamed() throws IOException {
+        AtomicFileWriter.write(target, out -> {
+            out.write("closed early".getBytes());
+            out.close();
+        });
+        assertEquals("closed early", Files.readString(target.toPath()));
+    }
+
+    @Test
+    void aFailedWriteLeavesTheOldFileAndNoTempFile() throws IOException {
+        AtomicFileWriter.write(target, out -> out.write("saved".getBytes()));
+        assertThrows(IOException.class, () -> AtomicFileWriter.write(target, out -> {
+            out.write("half writ".getBytes());
+            throw new IOException("drive is full");
+        }));
+        assertEquals("saved", Files.readString(target.toPath()));
+        assertEquals(1, directory.toFile().listFiles().length);
+    }
+}
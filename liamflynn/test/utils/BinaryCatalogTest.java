@@ -0,0 +1,93 @@
+package utils;
+
+import models.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryCatalogTest {
+
+    private Developer developerLego = new Developer("Lego", "www.lego.com");
+    private Developer developerEAGames = new Developer("EA Games", "www.eagames.com");
+    private List<App> apps;
+
+    @BeforeEach
+    void setUp() {
+        EducationApp weDo = new EducationApp(developerLego, "WeDo", 23, 1.5, 3.99, 3);
+        weDo.addRating(new Rating(2, "Scotty", "Loved the UX"));
+        weDo.addRating(new Rating(4, "JohnD", "Loved the UX"));
+        weDo.setAppId(4);
+        GameApp empires = new GameApp(developerEAGames, "Empires", 5, 1.0, 5.0, true);
+        empires.addRating(new Rating(5, "Scotty", "Great App"));
+        empires.setAppId(9);
+        ProductivityApp notes = new ProductivityApp(developerLego, "Notes", 10, 2.0, 1.99);
+        notes.setAppId(10);
+        apps = List.of(weDo, empires, notes);
+    }
+
+    private List<App> roundTrip(List<App> appsToWrite) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryCatalog.write(out, appsToWrite);
+        List<App> read = new ArrayList<>();
+        BinaryCatalog.read(new ByteArrayInputStream(out.toByteArray()), read::add);
+        return read;
+    }
+
+    @Nested
+    class RoundTrip {
+
+        @Test
+        void appsAreReadBackWithTheSameFieldsAndTypes() throws IOException {
+            List<App> read = roundTrip(apps);
+            assertEquals(3, read.size());
+            for (int i = 0; i < apps.size(); i++) {
+                assertEquals(apps.get(i).getClass(), read.get(i).getClass());
+                assertEquals(apps.get(i).appSummary(), read.get(i).appSummary());
+                assertEquals(apps.get(i).listRatings(), read.get(i).listRatings());
+                assertEquals(apps.get(i).getAppId(), read.get(i).getAppId());
+            }
+            assertEquals(3, ((EducationApp) read.get(0)).getLevel());
+            assertTrue(((GameApp) read.get(1)).isMultiplayer());
+        }
+
+        @Test
+        void appsWithTheSameDeveloperShareOneDeveloperAfterReading() throws IOException {
+            List<App> read = roundTrip(apps);
+            assertSame(read.get(0).getDeveloper(), read.get(2).getDeveloper());
+            assertEquals(developerLego, read.get(0).getDeveloper());
+        }
+
+        @Test
+        void anEmptyCatalogIsReadBackEmpty() throws IOException {
+            assertEquals(0, roundTrip(List.of()).size());
+        }
+    }
+
+    @Nested
+    class Validation {
+
+        @Test
+        void filesThatAreNotSnapshotsAreRejected() {
+            byte[] notASnapshot = "<object-stream/>".getBytes();
+            assertThrows(IOException.class, () -> BinaryCatalog.read(new ByteArrayInputStream(notASnapshot), app -> { }));
+        }
+
+        @Test
+        void newerVersionsAreRejected() throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            DataOutputStream data = new DataOutputStream(out);
+            data.writeInt(BinaryCatalog.MAGIC);
+            data.writeInt(BinaryCatalog.VERSION + 1);
+            assertThrows(IOException.class, () -> BinaryCatalog.read(new ByteArrayInputStream(out.toByteArray()), app -> { }));
+        }
+    }
+}
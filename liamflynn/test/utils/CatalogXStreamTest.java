@@ -0,0 +1,43 @@
+package utils;
+
+import models.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogXStreamTest {
+
+    private Developer developerLego = new Developer("Lego", "www.lego.com");
+
+    @Test
+    void appsOfEveryTypeKeepTheirRatingTotalsThroughASaveAndLoad() throws Exception {
+        List<App> apps = new ArrayList<>();
+        apps.add(new EducationApp(developerLego, "WeDo", 1, 1.0, 0, 1));
+        apps.add(new GameApp(developerLego, "Bricks", 1, 1.0, 0, true));
+        apps.add(new ProductivityApp(developerLego, "Planner", 1, 1.0, 0));
+        for (App app : apps) {
+            app.addRating(new Rating(4, "John", "Good"));
+            app.addRating(new Rating(5, "Jane", "Great"));
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CatalogXStream.write(out, apps);
+        List<App> loaded;
+        try (ObjectInputStream in = CatalogXStream.get().createObjectInputStream(new StringReader(out.toString()))) {
+            @SuppressWarnings("unchecked")
+            List<App> read = (List<App>) in.readObject();
+            loaded = read;
+        }
+
+        assertEquals(3, loaded.size());
+        for (App app : loaded) {
+            assertEquals(4.5, app.calculateRating(), 0.01);
+            app.addRating(new Rating(3, "Mary", "Fine"));
+            assertEquals(4.0, app.calculateRating(), 0.01);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package utils;
+
+import models.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OperationLogTest {
+
+    private File file;
+    private OperationLog log;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = File.createTempFile("apps", ".log");
+        log = new OperationLog(file, 1);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        log.close();
+        file.delete();
+    }
+
+    private List<Integer> replayInts() throws IOException {
+        List<Integer> replayed = new ArrayList<>();
+        log.replay(in -> replayed.add(in.readInt()));
+        return replayed;
+    }
+
+    @Nested
+    class AppendAndReplay {
+
+        @Test
+        void recordsAreReplayedInTheOrderTheyWereAppended() throws IOException {
+            for (int i = 0; i < 5; i++) {
+                int value = i;
+                log.append(out -> out.writeInt(value));
+            }
+            assertEquals(5, log.numberOfRecords());
+            assertEquals(List.of(0, 1, 2, 3, 4), replayInts());
+        }
+
+        @Test
+        void recordsAreReplayedAfterTheLogIsReopened() throws IOException {
+            log.append(out -> out.writeInt(7));
+            log.close();
+            log = new OperationLog(file, 1);
+            assertEquals(List.of(7), replayInts());
+            assertEquals(1, log.numberOfRecords());
+        }
+
+        @Test
+        void clearEmptiesTheLog() throws IOException {
+            log.append(out -> out.writeInt(7));
+            log.clear();
+            assertEquals(0, log.numberOfRecords());
+            assertEquals(List.of(), replayInts());
+            log.append(out -> out.writeInt(8));
+            assertEquals(List.of(8), replayInts());
+        }
+
+        @Test
+        void appsAreWrittenAndReadWithTheirDeveloperAndRatings() throws IOException {
+            GameApp app = new GameApp(new Developer("EA Games", "www.eagames.com"), "Empires", 5, 1.0, 5.0, true);
+            app.addRating(new Rating(5, "Scotty", "Great App"));
+            log.append(out -> OperationLog.writeApp(out, app));
+            List<App> replayed = new ArrayList<>();
+            log.replay(in -> replayed.add(OperationLog.readApp(in)));
+            assertEquals(app.appSummary(), replayed.get(0).appSummary());
+            assertEquals(app.listRatings(), replayed.get(0).listRatings());
+            assertEquals(app.getDeveloper(), replayed.get(0).getDeveloper());
+            assertTrue(((GameApp) replayed.get(0)).isMultiplayer());
+        }
+
+        @Test
+        void appDetailsAreWrittenWithoutTheRatings() throws IOException {
+            EducationApp app = new EducationApp(new Developer("Lego", "www.lego.com"), "WeDo", 5, 1.0, 0, 3);
+            for (int i = 0; i < 100; i++) {
+                app.addRating(new Rating(5, "Rater " + i, "A comment long enough to notice"));
+            }
+            log.append(out -> OperationLog.writeAppDetails(out, app));
+            List<App> replayed = new ArrayList<>();
+            log.replay(in -> replayed.add(OperationLog.readAppDetails(in)));
+            assertEquals("WeDo", replayed.get(0).getAppName());
+            assertEquals(3, ((EducationApp) replayed.get(0)).getLevel());
+            assertEquals(app.getDeveloper(), replayed.get(0).getDeveloper());
+            assertTrue(replayed.get(0).getRatings().isEmpty());
+            assertTrue(file.length() < 100);
+        }
+    }
+
+    @Nested
+    class Compaction {
+
+        @Test
+        void discardUpToKeepsRecordsAppendedAfterTheMark() throws IOException {
+            log.append(out -> out.writeInt(1));
+            log.append(out -> out.writeInt(2));
+            long mark = log.mark();
+            log.append(out -> out.writeInt(3));
+            log.discardUpTo(mark);
+            assertEquals(1, log.numberOfRecords());
+            log.append(out -> out.writeInt(4));
+            assertEquals(List.of(3, 4), replayInts());
+        }
+
+        @Test
+        void discardUpToTheEndEmptiesTheLog() throws IOException {
+            log.append(out -> out.writeInt(1));
+            log.discardUpTo(log.mark());
+            assertEquals(0, log.numberOfRecords());
+            assertEquals(0, file.length());
+        }
+    }
+
+    @Nested
+    class CrashRecovery {
+
+        @Test
+        void aRecordCutShortEndsTheReplayAndIsRemoved() throws IOException {
+            log.append(out -> out.writeInt(1));
+            log.append(out -> out.writeInt(2));
+            long twoRecords = file.length();
+            try (FileOutputStream out = new FileOutputStream(file, true)) {
+                //the length and checksum of a third record, without its bytes
+                out.write(new byte[]{0, 0, 0, 4, 1, 2, 3, 4, 0});
+            }
+            assertEquals(List.of(1, 2), replayInts());
+            assertEquals(twoRecords, file.length());
+
+            log.append(out -> out.writeInt(3));
+            assertEquals(List.of(1, 2, 3), replayInts());
+        }
+
+        @Test
+        void aRecordWithTheWrongChecksumEndsTheReplay() throws IOException {
+            log.append(out -> out.writeInt(1));
+            try (FileOutputStream out = new FileOutputStream(file, true)) {
+                out.write(new byte[]{0, 0, 0, 4, 1, 2, 3, 4, 0, 0, 0, 9});
+            }
+            assertEquals(List.of(1), replayInts());
+        }
+
+        @Test
+        void aLengthLongerThanTheRestOfTheFileEndsTheReplay() throws IOException {
+            log.append(out -> out.writeInt(1));
+            long oneRecord = file.length();
+            try (FileOutputStream out = new FileOutputStream(file, true)) {
+                //a corrupt length of almost 2GB, which mustn't be allocated
+                out.write(new byte[]{0x7F, (byte) 0xFF, (byte) 0xFF, (byte) 0xF0, 1, 2, 3, 4, 0, 0, 0, 9});
+            }
+            assertEquals(List.of(1), replayInts());
+            assertEquals(oneRecord, file.length());
+        }
+
+        @Test
+        void aZeroFilledTailEndsTheReplay() throws IOException {
+            log.append(out -> out.writeInt(1));
+            long oneRecord = file.length();
+            try (FileOutputStream out = new FileOutputStream(file, true)) {
+                //a length and checksum of 0, which the checksum of an empty record would match
+                out.write(new byte[64]);
+            }
+            assertEquals(List.of(1), replayInts());
+            assertEquals(oneRecord, file.length());
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package utils;
+
+import models.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SegmentedCatalogTest {
+
+    private static final int NUMBER_OF_APPS = SegmentedCatalog.APPS_PER_SEGMENT * 3 + 10;
+
+    private Developer developerLego = new Developer("Lego", "www.lego.com");
+    private Developer developerEAGames = new Developer("EA Games", "www.eagames.com");
+    private File directory;
+    private List<App> apps;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("segments").toFile();
+        apps = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_APPS; i++) {
+            App app = (i < SegmentedCatalog.APPS_PER_SEGMENT) ? new GameApp(developerEAGames, "Game " + i, 1, 1.0, 1.0, true)
+                    : new ProductivityApp(developerLego, "Tool " + i, 1, 1.0, 1.0);
+            app.setAppId(i + 1);
+            apps.add(app);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    @Nested
+    class Saving {
+
+        @Test
+        void theFirstSaveWritesEverySegment() throws IOException {
+            SegmentedCatalog.SaveResult result = new SegmentedCatalog(directory).save(apps);
+            assertEquals(4, result.getSegments());
+            assertEquals(4, result.getSegmentsWritten());
+            assertEquals(NUMBER_OF_APPS, result.getAppsWritten());
+            assertTrue(result.getBytesWritten() > 0);
+            assertFalse(apps.get(0).isDirty());
+            assertFalse(developerLego.isDirty());
+        }
+
+        @Test
+        void aSaveWithNoChangesOnlyWritesTheManifest() throws IOException {
+            SegmentedCatalog catalog = new SegmentedCatalog(directory);
+            catalog.save(apps);
+            SegmentedCatalog.SaveResult result = catalog.save(apps);
+            assertEquals(0, result.getSegmentsWritten());
+            assertEquals(0, result.getAppsWritten());
+        }
+
+        @Test
+        void onlyTheSegmentOfAChangedAppIsWritten() throws IOException {
+            SegmentedCatalog catalog = new SegmentedCatalog(directory);
+            long firstSave = catalog.save(apps).getBytesWritten();
+            apps.get(SegmentedCatalog.APPS_PER_SEGMENT + 5).addRating(new Rating(5, "Scotty", "Great App"));
+            SegmentedCatalog.SaveResult result = catalog.save(apps);
+            assertEquals(1, result.getSegmentsWritten());
+            assertEquals(SegmentedCatalog.APPS_PER_SEGMENT, result.getAppsWritten());
+            assertTrue(result.getBytesWritten() < firstSave / 2);
+        }
+
+        @Test
+        void aChangedDeveloperRewritesTheSegmentsOfItsApps() throws IOException {
+            SegmentedCatalog catalog = new SegmentedCatalog(directory);
+            catalog.save(apps);
+            developerEAGames.setDeveloperWebsite("www.ea.com");
+            assertEquals(1, catalog.save(apps).getSegmentsWritten());
+        }
+
+        @Test
+        void addingAnAppOnlyRewritesTheLastSegment() throws IOException {
+            SegmentedCatalog catalog = new SegmentedCatalog(directory);
+            catalog.save(apps);
+            App added = new ProductivityApp(developerLego, "Added", 1, 1.0, 1.0);
+            added.setAppId(NUMBER_OF_APPS + 1);
+            apps.add(added);
+            assertEquals(1, catalog.save(apps).getSegmentsWritten());
+        }
+
+        @Test
+        void deletingAnAppRewritesTheSegmentsAfterIt() throws IOException {
+            SegmentedCatalog catalog = new SegmentedCatalog(directory);
+            catalog.save(apps);
+            apps.remove(SegmentedCatalog.APPS_PER_SEGMENT * 2);
+            assertEquals(2, catalog.save(apps).getSegmentsWritten());
+        }
+    }
+
+    @Nested
+    class Loading {
+
+        @Test
+        void loadReadsTheLatestSaveInOrder() throws IOException {
+            SegmentedCatalog catalog = new SegmentedCatalog(directory);
+            catalog.save(apps);
+            apps.get(3).setAppName("Renamed");
+            catalog.save(apps);
+
+            SegmentedCatalog reopened = new SegmentedCatalog(directory);
+            List<App> loaded = reopened.load();
+            assertEquals(NUMBER_OF_APPS, loaded.size());
+            for (int i = 0; i < NUMBER_OF_APPS; i++) {
+                assertEquals(apps.get(i).appSummary(), loaded.get(i).appSummary());
+                assertFalse(loaded.get(i).isDirty());
+            }
+            assertEquals("Renamed", loaded.get(3).getAppName());
+            assertEquals(0, reopened.save(loaded).getSegmentsWritten());
+        }
+
+        @Test
+        void segmentsNoLongerInTheManifestAreDeleted() throws IOException {
+            SegmentedCatalog catalog = new SegmentedCatalog(directory);
+            catalog.save(apps);
+            apps.get(0).setAppCost(2.0);
+            catalog.save(apps);
+            //4 segments and the manifest
+            assertEquals(5, directory.listFiles().length);
+        }
+
+        @Test
+        void anEmptyDirectoryLoadsNoApps() throws IOException {
+            assertEquals(0, new SegmentedCatalog(directory).load().size());
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package utils;
+
+import models.*;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class XmlCatalogReaderTest {
+
+    //the same layout XStream writes apps.xml in, with the second app's developer written as a reference to the first's
+    private static final String APPS_XML = """
+            <object-stream>
+              <list>
+                <models.EducationApp>
+                  <developer>
+                    <developerName>Lego</developerName>
+                    <developerWebsite>www.lego.com</developerWebsite>
+                  </developer>
+                  <appName>WeDo</appName>
+                  <appSize>23.0</appSize>
+                  <appVersion>1.5</appVersion>
+                  <appCost>3.99</appCost>
+                  <ratings>
+                    <models.Rating>
+                      <numberOfStars>2</numberOfStars>
+                      <raterName>Scotty</raterName>
+                      <ratingComment>Loved the UX</ratingComment>
+                    </models.Rating>
+                    <models.Rating>
+                      <numberOfStars>4</numberOfStars>
+                      <raterName>JohnD</raterName>
+                      <ratingComment>Great App</ratingComment>
+                    </models.Rating>
+                  </ratings>
+                  <appId>4</appId>
+                  <level>3</level>
+                </models.EducationApp>
+                <models.GameApp>
+                  <developer>
+                    <developerName>EA Games</developerName>
+                    <developerWebsite>www.eagames.com</developerWebsite>
+                  </developer>
+                  <appName>Empires</appName>
+                  <appSize>5.0</appSize>
+                  <appVersion>1.0</appVersion>
+                  <appCost>5.0</appCost>
+                  <ratings/>
+                  <isMultiplayer>true</isMultiplayer>
+                </models.GameApp>
+                <models.GameApp>
+                  <developer reference="../../models.GameApp/developer"/>
+                  <appName>Tetris</appName>
+                  <appSize>1.0</appSize>
+                  <appVersion>1.0</appVersion>
+                  <appCost>0.0</appCost>
+                  <ratings/>
+                  <isMultiplayer>false</isMultiplayer>
+                </models.GameApp>
+                <models.ProductivityApp>
+                  <developer reference="../../models.EducationApp/developer"/>
+                  <appName>Notes &amp; More</appName>
+                  <appSize>10.0</appSize>
+                  <appVersion>2.0</appVersion>
+                  <appCost>1.99</appCost>
+                  <ratings/>
+                </models.ProductivityApp>
+              </list>
+            </object-stream>
+            """;
+
+    private static final String DEVELOPERS_XML = """
+            <object-stream>
+              <list>
+                <models.Developer>
+                  <developerName>Me</developerName>
+                  <developerWebsite>me.com</developerWebsite>
+                </models.Developer>
+                <models.Developer>
+                  <developerName>GameDev</developerName>
+                  <developerWebsite>gameDev.com</developerWebsite>
+                </models.Developer>
+              </list>
+            </object-stream>
+            """;
+
+    //the shorter names CatalogXStream writes, with ratings straight inside each app
+    private static final String ALIASED_APPS_XML = """
+            <object-stream>
+              <list>
+                <education>
+                  <developer>
+                    <name>Lego</name>
+                    <website>www.lego.com</website>
+                  </developer>
+                  <name>WeDo</name>
+                  <size>23.0</size>
+                  <version>1.5</version>
+                  <cost>3.99</cost>
+                  <rating>
+                    <stars>2</stars>
+                    <rater>Scotty</rater>
+                    <comment>Loved the UX</comment>
+                  </rating>
+                  <rating>
+                    <stars>4</stars>
+                    <rater>JohnD</rater>
+                    <comment>Great App</comment>
+                  </rating>
+                  <id>4</id>
+                  <level>3</level>
+                </education>
+                <game>
+                  <developer reference="../../education/developer"/>
+                  <name>Empires</name>
+                  <size>5.0</size>
+                  <version>1.0</version>
+                  <cost>5.0</cost>
+                  <id>5</id>
+                  <isMultiplayer>true</isMultiplayer>
+                </game>
+                <productivity>
+                  <developer>
+                    <name>Apple</name>
+                    <website>www.apple.com</website>
+                  </developer>
+                  <name>Notes</name>
+                  <size>10.0</size>
+                  <version>2.0</version>
+                  <cost>1.99</cost>
+                </productivity>
+              </list>
+            </object-stream>
+            """;
+
+    private List<App> readApps(String xml) throws XMLStreamException {
+        List<App> apps = new ArrayList<>();
+        XmlCatalogReader.readApps(new StringReader(xml), apps::add);
+        return apps;
+    }
+
+    @Nested
+    class ReadingApps {
+
+        @Test
+        void everyAppIsReadWithItsFieldsAndType() throws XMLStreamException {
+            List<App> apps = readApps(APPS_XML);
+            assertEquals(4, apps.size());
+
+            EducationApp weDo = (EducationApp) apps.get(0);
+            assertEquals("WeDo", weDo.getAppName());
+            assertEquals(new Developer("Lego", "www.lego.com"), weDo.getDeveloper());
+            assertEquals(23.0, weDo.getAppSize());
+            assertEquals(1.5, weDo.getAppVersion());
+            assertEquals(3.99, weDo.getAppCost());
+            assertEquals(3, weDo.getLevel());
+            assertEquals(4, weDo.getAppId());
+
+            assertTrue(((GameApp) apps.get(1)).isMultiplayer());
+            assertFalse(((GameApp) apps.get(2)).isMultiplayer());
+            assertEquals("Notes & More", apps.get(3).getAppName());
+            assertTrue(apps.get(3) instanceof ProductivityApp);
+        }
+
+        @Test
+        void ratingsAreReadInOrderAndCountTowardsTheAverage() throws XMLStreamException {
+            App weDo = readApps(APPS_XML).get(0);
+            assertEquals(2, weDo.getRatings().size());
+            assertEquals("Scotty", weDo.getRatings().get(0).getRaterName());
+            assertEquals("Great App", weDo.getRatings().get(1).getRatingComment());
+            assertEquals(3.0, weDo.calculateRating(), 0.01);
+        }
+
+        @Test
+        void developerReferencesShareTheDeveloperTheyPointTo() throws XMLStreamException {
+            List<App> apps = readApps(APPS_XML);
+            assertSame(apps.get(1).getDeveloper(), apps.get(2).getDeveloper());
+            assertSame(apps.get(0).getDeveloper(), apps.get(3).getDeveloper());
+        }
+
+        @Test
+        void unknownAppTypesAreRejected() {
+            String xml = "<object-stream><list><models.ChatApp><appName>Chat</appName></models.ChatApp></list></object-stream>";
+            assertThrows(XMLStreamException.class, () -> readApps(xml));
+        }
+
+        @Test
+        void theShorterNamesAndImplicitRatingsAreRead() throws XMLStreamException {
+            List<App> apps = readApps(ALIASED_APPS_XML);
+            assertEquals(3, apps.size());
+
+            EducationApp weDo = (EducationApp) apps.get(0);
+            assertEquals("WeDo", weDo.getAppName());
+            assertEquals(new Developer("Lego", "www.lego.com"), weDo.getDeveloper());
+            assertEquals(23.0, weDo.getAppSize());
+            assertEquals(3.99, weDo.getAppCost());
+            assertEquals(3, weDo.getLevel());
+            assertEquals(4, weDo.getAppId());
+            assertEquals(2, weDo.getRatings().size());
+            assertEquals("Great App", weDo.getRatings().get(1).getRatingComment());
+
+            assertTrue(((GameApp) apps.get(1)).isMultiplayer());
+            assertSame(weDo.getDeveloper(), apps.get(1).getDeveloper());
+            assertTrue(apps.get(2) instanceof ProductivityApp);
+            assertEquals(0, apps.get(2).getRatings().size());
+        }
+
+        @Test
+        void anEmptyListReadsNoApps() throws XMLStreamException {
+            assertEquals(0, readApps("<object-stream><list/></object-stream>").size());
+        }
+    }
+
+    @Nested
+    class ReadingDevelopers {
+
+        @Test
+        void everyDeveloperIsRead() throws XMLStreamException {
+            List<Developer> developers = new ArrayList<>();
+            XmlCatalogReader.readDevelopers(new StringReader(DEVELOPERS_XML), developers::add);
+            assertEquals(2, developers.size());
+            assertEquals(new Developer("Me", "me.com"), developers.get(0));
+            assertEquals(new Developer("GameDev", "gameDev.com"), developers.get(1));
+        }
+
+        @Test
+        void developersWithTheShorterNamesAreRead() throws XMLStreamException {
+            String xml = "<object-stream><list><developer><name>Me</name><website>me.com</website></developer></list></object-stream>";
+            List<Developer> developers = new ArrayList<>();
+            XmlCatalogReader.readDevelopers(new StringReader(xml), developers::add);
+            assertEquals(List.of(new Developer("Me", "me.com")), developers);
+        }
+    }
+}